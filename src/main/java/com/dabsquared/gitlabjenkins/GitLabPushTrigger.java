@@ -6,6 +6,7 @@ import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.publisher.GitLabAcceptMergeRequestPublisher;
 import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
 import com.dabsquared.gitlabjenkins.publisher.GitLabMessagePublisher;
@@ -15,10 +16,12 @@ import com.dabsquared.gitlabjenkins.trigger.branch.ProjectBranchesProvider;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterFactory;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
+import com.dabsquared.gitlabjenkins.trigger.handler.ObsoleteBuildAborter;
 import com.dabsquared.gitlabjenkins.trigger.handler.merge.MergeRequestHookTriggerHandler;
 import com.dabsquared.gitlabjenkins.trigger.handler.note.NoteHookTriggerHandler;
 import com.dabsquared.gitlabjenkins.trigger.handler.push.PushHookTriggerHandler;
 import com.dabsquared.gitlabjenkins.webhook.GitLabWebHook;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.Extension;
 import hudson.Util;
 import hudson.init.InitMilestone;
@@ -32,7 +35,6 @@ import hudson.triggers.TriggerDescriptor;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import hudson.util.ListBoxModel.Option;
-import hudson.util.SequentialExecutionQueue;
 import jenkins.model.Jenkins;
 import jenkins.model.ParameterizedJobMixIn;
 import jenkins.triggers.SCMTriggerItem.SCMTriggerItems;
@@ -69,6 +71,8 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     private boolean ciSkip = true;
     private boolean skipWorkInProgressMergeRequest;
     private boolean setBuildDescription = true;
+    private boolean abortObsoleteBuilds;
+    private boolean skipBuiltCommits;
     private transient boolean addNoteOnMergeRequest;
     private transient boolean addCiMessage;
     private transient boolean addVoteOnMergeRequest;
@@ -91,7 +95,8 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
                              boolean triggerOnNoteRequest, String noteRegex, boolean skipWorkInProgressMergeRequest, boolean ciSkip,
                              boolean setBuildDescription, boolean addNoteOnMergeRequest, boolean addCiMessage, boolean addVoteOnMergeRequest,
                              boolean acceptMergeRequestOnSuccess, BranchFilterType branchFilterType,
-                             String includeBranchesSpec, String excludeBranchesSpec, String targetBranchRegex) {
+                             String includeBranchesSpec, String excludeBranchesSpec, String targetBranchRegex,
+                             boolean abortObsoleteBuilds, boolean skipBuiltCommits) {
         this.triggerOnPush = triggerOnPush;
         this.triggerOnMergeRequest = triggerOnMergeRequest;
         this.triggerOnNoteRequest = triggerOnNoteRequest;
@@ -108,6 +113,8 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
         this.excludeBranchesSpec = excludeBranchesSpec;
         this.targetBranchRegex = targetBranchRegex;
         this.acceptMergeRequestOnSuccess = acceptMergeRequestOnSuccess;
+        this.abortObsoleteBuilds = abortObsoleteBuilds;
+        this.skipBuiltCommits = skipBuiltCommits;
 
         initializeTriggerHandler();
         initializeBranchFilter();
@@ -193,6 +200,14 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
         return skipWorkInProgressMergeRequest;
     }
 
+    public boolean getAbortObsoleteBuilds() {
+        return abortObsoleteBuilds;
+    }
+
+    public boolean getSkipBuiltCommits() {
+        return skipBuiltCommits;
+    }
+
     public BranchFilterType getBranchFilterType() {
         return branchFilterType;
     }
@@ -212,11 +227,17 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     // executes when the Trigger receives a push request
     public void onPost(final PushHook hook) {
         pushHookTriggerHandler.handle(job, hook, ciSkip, branchFilter);
+        if (abortObsoleteBuilds) {
+            ObsoleteBuildAborter.instance().onPush(job, hook);
+        }
     }
 
     // executes when the Trigger receives a merge request
     public void onPost(final MergeRequestHook hook) {
         mergeRequestHookTriggerHandler.handle(job, hook, ciSkip, branchFilter);
+        if (abortObsoleteBuilds) {
+            ObsoleteBuildAborter.instance().onMergeRequest(job, hook);
+        }
     }
 
     // executes when the Trigger receives a note request
@@ -224,6 +245,29 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
         noteHookTriggerHandler.handle(job, hook, ciSkip, branchFilter);
     }
 
+    /**
+     * @return {@code false} if the hook with the given summary certainly won't trigger a build
+     */
+    public boolean accepts(WebHookSummary summary) {
+        switch (summary.getEventType()) {
+            case "Push Hook":
+            case "Tag Push Hook":
+                return pushHookTriggerHandler.accepts(summary, ciSkip, branchFilter);
+            case "Merge Request Hook":
+                // closed and merged merge requests still abort their running builds
+                return (abortObsoleteBuilds && isClosedOrMerged(summary.getState()))
+                    || mergeRequestHookTriggerHandler.accepts(summary, ciSkip, branchFilter);
+            case "Note Hook":
+                return noteHookTriggerHandler.accepts(summary, ciSkip, branchFilter);
+            default:
+                return true;
+        }
+    }
+
+    private boolean isClosedOrMerged(String state) {
+        return State.closed.name().equals(state) || State.merged.name().equals(state);
+    }
+
     private void initializeTriggerHandler() {
         mergeRequestHookTriggerHandler = newMergeRequestHookTriggerHandler(triggerOnMergeRequest, triggerOpenMergeRequestOnPush, skipWorkInProgressMergeRequest);
         noteHookTriggerHandler = newNoteHookTriggerHandler(triggerOnNoteRequest, noteRegex);
@@ -264,7 +308,6 @@ public class GitLabPushTrigger extends Trigger<Job<?, ?>> {
     @Extension
     public static class DescriptorImpl extends TriggerDescriptor {
 
-        private transient final SequentialExecutionQueue queue = new SequentialExecutionQueue(Jenkins.MasterComputer.threadPoolForRemoting);
         private boolean jobsMigrated = false;
         private boolean jobsMigrated2 = false;
         private String gitlabApiToken;
@@ -216,6 +216,16 @@ public final class CauseData {
         return targetProjectUrl;
     }
 
+    /**
+     * @return a copy of this cause data whose pushed commit range starts at the given revision
+     */
+    public CauseData withBefore(String before) {
+        return new CauseData(actionType, sourceProjectId, targetProjectId, branch, sourceBranch, userName, userEmail, sourceRepoHomepage,
+                             sourceRepoName, sourceNamespace, sourceRepoUrl, sourceRepoSshUrl, sourceRepoHttpUrl, mergeRequestTitle,
+                             mergeRequestDescription, mergeRequestId, mergeRequestIid, targetBranch, targetRepoName, targetNamespace,
+                             targetRepoSshUrl, targetRepoHttpUrl, triggeredByUser, before, after, lastCommit, targetProjectUrl);
+    }
+
     String getShortDescription() {
         return actionType.getShortDescription(this);
     }
@@ -8,6 +8,14 @@ import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
 import com.dabsquared.gitlabjenkins.gitlab.GitLabClientBuilder;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabApi;
+import com.dabsquared.gitlabjenkins.trigger.handler.AdaptiveQuietPeriod;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildCoalescer;
+import com.dabsquared.gitlabjenkins.trigger.priority.BuildPriorities;
+import com.dabsquared.gitlabjenkins.trigger.priority.PriorityClass;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.dabsquared.gitlabjenkins.webhook.limit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.queue.JobLaneExecutor;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Item;
@@ -36,6 +44,24 @@ import java.util.Map;
 public class GitLabConnectionConfig extends GlobalConfiguration {
 
     private boolean useAuthenticatedEndpoint;
+    private boolean asyncWebHookProcessing;
+    private int webHookQueueCapacity = WebHookQueue.DEFAULT_CAPACITY;
+    private int webHookWorkerThreads = WebHookQueue.DEFAULT_WORKER_THREADS;
+    private int webHookDispatchThreads = JobLaneExecutor.DEFAULT_THREADS;
+    private int buildCoalescingWindow;
+    private boolean adaptiveQuietPeriod;
+    private int minQuietPeriod;
+    private int maxQuietPeriod = 60;
+    private boolean webHookJournal;
+    private int webHookRateLimit;
+    private int webHookProjectRateLimit;
+    private int maxBuildQueueLength;
+    private boolean prioritizeBuilds;
+    private int mergeRequestBuildPriority = PriorityClass.MERGE_REQUEST.getDefaultPriority();
+    private int noteBuildPriority = PriorityClass.NOTE.getDefaultPriority();
+    private int pushBuildPriority = PriorityClass.PUSH.getDefaultPriority();
+    private int openMergeRequestBuildPriority = PriorityClass.OPEN_MERGE_REQUEST.getDefaultPriority();
+    private int maxOpenMergeRequestBuildsPerProject;
     private List<GitLabConnection> connections = new ArrayList<>();
     private transient Map<String, GitLabConnection> connectionMap = new HashMap<>();
     private transient Map<String, GitLabApi> clients = new HashMap<>();
@@ -43,13 +69,33 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
     public GitLabConnectionConfig() {
         load();
         refreshConnectionMap();
+        refreshWebHookProcessing();
     }
 
     @Override
     public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
         connections = req.bindJSONToList(GitLabConnection.class, json.get("connections"));
         useAuthenticatedEndpoint = json.getBoolean("useAuthenticatedEndpoint");
+        asyncWebHookProcessing = json.optBoolean("asyncWebHookProcessing");
+        webHookQueueCapacity = json.optInt("webHookQueueCapacity", WebHookQueue.DEFAULT_CAPACITY);
+        webHookWorkerThreads = json.optInt("webHookWorkerThreads", WebHookQueue.DEFAULT_WORKER_THREADS);
+        webHookDispatchThreads = json.optInt("webHookDispatchThreads", JobLaneExecutor.DEFAULT_THREADS);
+        buildCoalescingWindow = json.optInt("buildCoalescingWindow", 0);
+        adaptiveQuietPeriod = json.optBoolean("adaptiveQuietPeriod");
+        minQuietPeriod = json.optInt("minQuietPeriod", 0);
+        maxQuietPeriod = json.optInt("maxQuietPeriod", 60);
+        webHookJournal = json.optBoolean("webHookJournal");
+        webHookRateLimit = json.optInt("webHookRateLimit", 0);
+        webHookProjectRateLimit = json.optInt("webHookProjectRateLimit", 0);
+        maxBuildQueueLength = json.optInt("maxBuildQueueLength", 0);
+        prioritizeBuilds = json.optBoolean("prioritizeBuilds");
+        mergeRequestBuildPriority = json.optInt("mergeRequestBuildPriority", PriorityClass.MERGE_REQUEST.getDefaultPriority());
+        noteBuildPriority = json.optInt("noteBuildPriority", PriorityClass.NOTE.getDefaultPriority());
+        pushBuildPriority = json.optInt("pushBuildPriority", PriorityClass.PUSH.getDefaultPriority());
+        openMergeRequestBuildPriority = json.optInt("openMergeRequestBuildPriority", PriorityClass.OPEN_MERGE_REQUEST.getDefaultPriority());
+        maxOpenMergeRequestBuildsPerProject = json.optInt("maxOpenMergeRequestBuildsPerProject", 0);
         refreshConnectionMap();
+        refreshWebHookProcessing();
         clients.clear();
         save();
         return super.configure(req, json);
@@ -63,6 +109,82 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         this.useAuthenticatedEndpoint = useAuthenticatedEndpoint;
     }
 
+    public boolean isAsyncWebHookProcessing() {
+        return asyncWebHookProcessing;
+    }
+
+    void setAsyncWebHookProcessing(boolean asyncWebHookProcessing) {
+        this.asyncWebHookProcessing = asyncWebHookProcessing;
+    }
+
+    public int getWebHookQueueCapacity() {
+        return webHookQueueCapacity;
+    }
+
+    public int getWebHookWorkerThreads() {
+        return webHookWorkerThreads;
+    }
+
+    public int getWebHookDispatchThreads() {
+        return webHookDispatchThreads;
+    }
+
+    public int getBuildCoalescingWindow() {
+        return buildCoalescingWindow;
+    }
+
+    public boolean isAdaptiveQuietPeriod() {
+        return adaptiveQuietPeriod;
+    }
+
+    public int getMinQuietPeriod() {
+        return minQuietPeriod;
+    }
+
+    public int getMaxQuietPeriod() {
+        return maxQuietPeriod;
+    }
+
+    public boolean isWebHookJournal() {
+        return webHookJournal;
+    }
+
+    public int getWebHookRateLimit() {
+        return webHookRateLimit;
+    }
+
+    public int getWebHookProjectRateLimit() {
+        return webHookProjectRateLimit;
+    }
+
+    public int getMaxBuildQueueLength() {
+        return maxBuildQueueLength;
+    }
+
+    public boolean isPrioritizeBuilds() {
+        return prioritizeBuilds;
+    }
+
+    public int getMergeRequestBuildPriority() {
+        return mergeRequestBuildPriority;
+    }
+
+    public int getNoteBuildPriority() {
+        return noteBuildPriority;
+    }
+
+    public int getPushBuildPriority() {
+        return pushBuildPriority;
+    }
+
+    public int getOpenMergeRequestBuildPriority() {
+        return openMergeRequestBuildPriority;
+    }
+
+    public int getMaxOpenMergeRequestBuildsPerProject() {
+        return maxOpenMergeRequestBuildsPerProject;
+    }
+
     public List<GitLabConnection> getConnections() {
         return connections;
     }
@@ -166,6 +288,17 @@ public class GitLabConnectionConfig extends GlobalConfiguration {
         }
     }
 
+    private void refreshWebHookProcessing() {
+        WebHookQueue.instance().configure(webHookQueueCapacity, webHookWorkerThreads);
+        JobLaneExecutor.instance().configure(webHookDispatchThreads);
+        BuildCoalescer.instance().setWindow(buildCoalescingWindow);
+        AdaptiveQuietPeriod.instance().configure(adaptiveQuietPeriod, minQuietPeriod, maxQuietPeriod);
+        WebHookJournal.instance().setEnabled(webHookJournal);
+        WebHookRateLimiter.instance().configure(webHookRateLimit, webHookProjectRateLimit, maxBuildQueueLength);
+        BuildPriorities.instance().configure(prioritizeBuilds, mergeRequestBuildPriority, noteBuildPriority, pushBuildPriority,
+                                             openMergeRequestBuildPriority, maxOpenMergeRequestBuildsPerProject);
+    }
+
     private static class GitLabCredentialMatcher implements CredentialsMatcher {
         @Override
         public boolean matches(@NonNull Credentials credentials) {
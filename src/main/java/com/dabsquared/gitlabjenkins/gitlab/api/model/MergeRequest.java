@@ -6,6 +6,7 @@ import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -32,6 +33,7 @@ public class MergeRequest {
     private Boolean workInProgress;
     private Boolean mergeWhenBuildSucceeds;
     private String mergeStatus;
+    private Date updatedAt;
 
     public Integer getId() {
         return id;
@@ -177,6 +179,14 @@ public class MergeRequest {
         this.mergeStatus = mergeStatus;
     }
 
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -205,6 +215,7 @@ public class MergeRequest {
                 .append(workInProgress, that.workInProgress)
                 .append(mergeWhenBuildSucceeds, that.mergeWhenBuildSucceeds)
                 .append(mergeStatus, that.mergeStatus)
+                .append(updatedAt, that.updatedAt)
                 .isEquals();
     }
 
@@ -229,6 +240,7 @@ public class MergeRequest {
                 .append(workInProgress)
                 .append(mergeWhenBuildSucceeds)
                 .append(mergeStatus)
+                .append(updatedAt)
                 .toHashCode();
     }
 
@@ -253,6 +265,7 @@ public class MergeRequest {
                 .append("workInProgress", workInProgress)
                 .append("mergeWhenBuildSucceeds", mergeWhenBuildSucceeds)
                 .append("mergeStatus", mergeStatus)
+                .append("updatedAt", updatedAt)
                 .toString();
     }
 }
@@ -0,0 +1,106 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import com.google.common.io.BaseEncoding;
+
+import java.util.AbstractList;
+
+/**
+ * Memory bounded list of the commits of a push hook.
+ *
+ * Only the last commit, which is the one that gets built, is kept as a fully populated {@link Commit}.
+ * The ids of the preceding commits are packed as 20 byte SHA-1 values into a ring buffer that holds at most
+ * {@code maxCompactCommits} entries, older commits beyond that are dropped.
+ */
+public class ProjectedCommitList extends AbstractList<Commit> {
+
+    private static final int SHA1_LENGTH = 20;
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+    private final int capacity;
+    private final byte[] shas;
+    private String[] irregularIds;
+    private int start;
+    private int compactCount;
+    private int skippedCount;
+    private Commit last;
+
+    ProjectedCommitList(int maxCompactCommits) {
+        this.capacity = Math.max(0, maxCompactCommits);
+        this.shas = new byte[capacity * SHA1_LENGTH];
+    }
+
+    void addCompact(String id) {
+        if (capacity == 0) {
+            skippedCount++;
+            return;
+        }
+        int slot;
+        if (compactCount == capacity) {
+            slot = start;
+            start = (start + 1) % capacity;
+            skippedCount++;
+        } else {
+            slot = (start + compactCount) % capacity;
+            compactCount++;
+        }
+        byte[] sha = decode(id);
+        if (sha == null) {
+            if (irregularIds == null) {
+                irregularIds = new String[capacity];
+            }
+            irregularIds[slot] = id;
+        } else {
+            System.arraycopy(sha, 0, shas, slot * SHA1_LENGTH, SHA1_LENGTH);
+            if (irregularIds != null) {
+                irregularIds[slot] = null;
+            }
+        }
+    }
+
+    void setLast(Commit last) {
+        this.last = last;
+    }
+
+    /**
+     * @return the number of commits that were dropped because they exceeded the configured cap
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    @Override
+    public Commit get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (index == compactCount) {
+            return last;
+        }
+        Commit commit = new Commit();
+        commit.setId(getCompactId((start + index) % capacity));
+        return commit;
+    }
+
+    @Override
+    public int size() {
+        return last == null ? compactCount : compactCount + 1;
+    }
+
+    private String getCompactId(int slot) {
+        if (irregularIds != null && irregularIds[slot] != null) {
+            return irregularIds[slot];
+        }
+        return HEX.encode(shas, slot * SHA1_LENGTH, SHA1_LENGTH);
+    }
+
+    private static byte[] decode(String id) {
+        if (id == null || id.length() != SHA1_LENGTH * 2) {
+            return null;
+        }
+        try {
+            return HEX.decode(id.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Reads the commits of a push hook into a {@link ProjectedCommitList}, so only the last commit is kept completely
+ * no matter how many commits have been pushed.
+ *
+ * The commits are read straight from the token stream: only the fields of {@link Commit} are read, everything else is
+ * skipped, and a commit is reduced to its id as soon as the next one starts.
+ *
+ * The number of retained commit ids can be changed with the system property
+ * {@code com.dabsquared.gitlabjenkins.gitlab.hook.model.ProjectedCommitListDeserializer.maxCommitIds}.
+ */
+public class ProjectedCommitListDeserializer extends JsonDeserializer<List<Commit>> {
+
+    static final int MAX_COMMIT_IDS = Integer.getInteger(ProjectedCommitListDeserializer.class.getName() + ".maxCommitIds", 1000);
+
+    @Override
+    public List<Commit> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            throw ctxt.mappingException(List.class);
+        }
+        ProjectedCommitList result = new ProjectedCommitList(MAX_COMMIT_IDS);
+        Commit pending = null;
+        for (JsonToken token = nextToken(p, ctxt); token != JsonToken.END_ARRAY; token = nextToken(p, ctxt)) {
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            if (pending != null) {
+                result.addCompact(pending.getId());
+            }
+            pending = readCommit(p, ctxt);
+        }
+        if (pending != null) {
+            result.setLast(pending);
+        }
+        return result;
+    }
+
+    private static Commit readCommit(JsonParser p, DeserializationContext ctxt) throws IOException {
+        Commit commit = new Commit();
+        while (nextToken(p, ctxt) == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            if (p.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    commit.setId(readText(p));
+                    break;
+                case "message":
+                    commit.setMessage(readText(p));
+                    break;
+                case "url":
+                    commit.setUrl(readText(p));
+                    break;
+                case "timestamp":
+                    commit.setTimestamp(ctxt.readValue(p, Date.class));
+                    break;
+                case "author":
+                    commit.setAuthor(ctxt.readValue(p, User.class));
+                    break;
+                case "added":
+                    commit.setAdded(readTexts(p, ctxt));
+                    break;
+                case "modified":
+                    commit.setModified(readTexts(p, ctxt));
+                    break;
+                case "removed":
+                    commit.setRemoved(readTexts(p, ctxt));
+                    break;
+                default:
+                    p.skipChildren();
+            }
+        }
+        return commit;
+    }
+
+    private static String readText(JsonParser p) throws IOException {
+        String text = p.getCurrentToken().isScalarValue() ? p.getValueAsString() : null;
+        p.skipChildren();
+        return text;
+    }
+
+    private static List<String> readTexts(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.getCurrentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        List<String> texts = new ArrayList<>();
+        for (JsonToken token = nextToken(p, ctxt); token != JsonToken.END_ARRAY; token = nextToken(p, ctxt)) {
+            texts.add(readText(p));
+        }
+        return texts;
+    }
+
+    private static JsonToken nextToken(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.nextToken();
+        if (token == null) {
+            throw ctxt.mappingException("Unexpected end of the commits of a push hook");
+        }
+        return token;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dabsquared.gitlabjenkins.gitlab.hook.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import net.karneim.pojobuilder.GeneratePojoBuilder;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -22,6 +23,7 @@ public class PushHook extends WebHook {
     private String userAvatar;
     private Integer projectId;
     private Project project;
+    @JsonDeserialize(using = ProjectedCommitListDeserializer.class)
     private List<Commit> commits;
     private Integer totalCommitsCount;
 
@@ -97,6 +99,10 @@ public class PushHook extends WebHook {
         this.project = project;
     }
 
+    /**
+     * @return the pushed commits, when read from a web hook only the last one is fully populated
+     * @see ProjectedCommitList
+     */
     public List<Commit> getCommits() {
         return commits;
     }
@@ -0,0 +1,163 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SCMListener;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.util.BuildData;
+import hudson.plugins.git.util.MergeRecord;
+import hudson.scm.SCM;
+import hudson.scm.SCMRevisionState;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Index from the branches built by a job to the number of their latest build, so that the status of a branch can be
+ * looked up without loading the builds of the job.
+ *
+ * The index is kept in memory only. It is built on the first lookup of a job and kept current from the checkouts of
+ * its builds; builds newer than the watermark of the index are picked up on the next lookup.
+ */
+public final class BranchBuildIndex {
+
+    static final int MAX_JOBS = Integer.getInteger(BranchBuildIndex.class.getName() + ".maxJobs", 1000);
+
+    private static final Logger LOGGER = Logger.getLogger(BranchBuildIndex.class.getName());
+    private static final BranchBuildIndex INSTANCE = new BranchBuildIndex();
+
+    private final Cache<String, JobBranchIndex> indexes = CacheBuilder.newBuilder().maximumSize(MAX_JOBS).build();
+
+    private BranchBuildIndex() { }
+
+    public static BranchBuildIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of the latest build of the job that has built the branch and hasn't been a merge build or
+     * {@code null} if there is none
+     */
+    public Integer findBuildNumber(Job<?, ?> job, String branchName) {
+        return getIndex(job).find(branchName);
+    }
+
+    /**
+     * Drops the index of the job, it's built anew on the next lookup.
+     */
+    public void invalidate(Job<?, ?> job) {
+        indexes.invalidate(job.getFullName());
+    }
+
+    private JobBranchIndex getIndex(Job<?, ?> job) {
+        JobBranchIndex index;
+        try {
+            index = indexes.get(job.getFullName(), new Callable<JobBranchIndex>() {
+                public JobBranchIndex call() {
+                    return new JobBranchIndex();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        Run<?, ?> lastBuild = job.getLastBuild();
+        if (lastBuild != null && lastBuild.getNumber() > index.getWatermark()) {
+            catchUp(job, index);
+        }
+        return index;
+    }
+
+    private void catchUp(Job<?, ?> job, final JobBranchIndex index) {
+        synchronized (index) {
+            final int[] indexed = {0};
+            index.setWatermark(BuildWatermark.walk(job, index.getWatermark(), new BuildWatermark.Visitor() {
+                public void visit(Run<?, ?> build) {
+                    index.add(build.getNumber(), getBranchNames(build));
+                    indexed[0]++;
+                }
+            }));
+            LOGGER.log(Level.FINE, "Indexed the branches of {0} builds of {1}", toArray(indexed[0], job.getFullName()));
+        }
+    }
+
+    private void add(Run<?, ?> build) {
+        JobBranchIndex index = indexes.getIfPresent(build.getParent().getFullName());
+        if (index != null) {
+            index.add(build.getNumber(), getBranchNames(build));
+        }
+    }
+
+    private void remove(Run<?, ?> build) {
+        JobBranchIndex index = indexes.getIfPresent(build.getParent().getFullName());
+        if (index != null && index.contains(build.getNumber())) {
+            indexes.invalidate(build.getParent().getFullName());
+        }
+    }
+
+    private List<String> getBranchNames(Run<?, ?> build) {
+        BuildData data = build.getAction(BuildData.class);
+        if (data == null || data.lastBuild == null || data.lastBuild.getRevision() == null) {
+            return Collections.emptyList();
+        }
+        MergeRecord merge = build.getAction(MergeRecord.class);
+        if (merge != null && !merge.getSha1().equals(data.lastBuild.getMarked().getSha1String())) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (Branch branch : data.lastBuild.getRevision().getBranches()) {
+            result.add(branch.getName());
+        }
+        return result;
+    }
+
+    @Extension
+    public static class SCMListenerImpl extends SCMListener {
+        @Override
+        public void onCheckout(Run<?, ?> build, SCM scm, FilePath workspace, TaskListener listener, File changelogFile,
+                               SCMRevisionState pollingBaseline) throws Exception {
+            INSTANCE.add(build);
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            INSTANCE.add(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            INSTANCE.remove(run);
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.indexes.invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.indexes.invalidate(oldFullName);
+        }
+    }
+}
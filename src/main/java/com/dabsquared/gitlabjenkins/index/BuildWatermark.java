@@ -0,0 +1,38 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import hudson.model.Job;
+import hudson.model.Run;
+
+/**
+ * Walks the builds of a job that are newer than the watermark of an index, i.e. the highest build number up to which
+ * all builds have been indexed.
+ */
+final class BuildWatermark {
+
+    interface Visitor {
+        void visit(Run<?, ?> build);
+    }
+
+    private BuildWatermark() { }
+
+    /**
+     * Passes the builds newer than the watermark to the visitor, the newest build first.
+     *
+     * @return the new watermark, which is never moved past a build that is still running
+     */
+    static int walk(Job<?, ?> job, int watermark, Visitor visitor) {
+        int newWatermark = watermark;
+        for (Run<?, ?> build : job.getBuilds()) {
+            if (build.getNumber() <= watermark) {
+                break;
+            }
+            visitor.visit(build);
+            if (build.isBuilding()) {
+                newWatermark = build.getNumber() - 1;
+            } else if (newWatermark == watermark) {
+                newWatermark = build.getNumber();
+            }
+        }
+        return Math.max(watermark, newWatermark);
+    }
+}
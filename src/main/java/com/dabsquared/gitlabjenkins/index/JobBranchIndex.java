@@ -0,0 +1,75 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The number of the latest build of each branch of a single job. A branch is registered under every suffix of its
+ * name that follows a {@code /}, so that {@code origin/feature/foo} is found as {@code feature/foo} and {@code foo}.
+ */
+final class JobBranchIndex {
+
+    private final Map<String, Integer> latestBuilds = new HashMap<>();
+    private final Map<Integer, Set<String>> keysByBuild = new HashMap<>();
+    private int watermark;
+
+    /**
+     * @return the highest build number up to which all builds have been indexed
+     */
+    synchronized int getWatermark() {
+        return watermark;
+    }
+
+    synchronized void setWatermark(int watermark) {
+        this.watermark = watermark;
+    }
+
+    /**
+     * @return the number of the latest build of the branch or {@code null} if none is known
+     */
+    synchronized Integer find(String branchName) {
+        return latestBuilds.get(branchName);
+    }
+
+    synchronized void add(int number, Collection<String> branchNames) {
+        for (String branchName : branchNames) {
+            for (int i = branchName.indexOf('/'); i >= 0; i = branchName.indexOf('/', i + 1)) {
+                String key = branchName.substring(i + 1);
+                Integer latest = latestBuilds.get(key);
+                if (latest == null || latest < number) {
+                    latestBuilds.put(key, number);
+                    if (latest != null) {
+                        removeKey(latest, key);
+                    }
+                    addKey(number, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the build has been the latest build of a branch, the index has to be built anew then
+     */
+    synchronized boolean contains(int number) {
+        return keysByBuild.containsKey(number);
+    }
+
+    private void addKey(int number, String key) {
+        Set<String> keys = keysByBuild.get(number);
+        if (keys == null) {
+            keys = new HashSet<>();
+            keysByBuild.put(number, keys);
+        }
+        keys.add(key);
+    }
+
+    private void removeKey(int number, String key) {
+        Set<String> keys = keysByBuild.get(number);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByBuild.remove(number);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * The SHA1s of the builds of a single job, stored as sorted 20 byte keys with the number of the build that built them.
+ * Lookups work on an immutable snapshot of the keys, so they don't block while builds are added. Single builds are
+ * inserted into a copy of the snapshot, many builds at once are merged with a single sort.
+ *
+ * The file starts with a magic number, the watermark and the number of keys, followed by the sorted keys and the
+ * build numbers in the same order.
+ */
+final class JobSha1Index {
+
+    private static final Logger LOGGER = Logger.getLogger(JobSha1Index.class.getName());
+    private static final int MAGIC = 0x474c5331;
+    private static final int HEADER_LENGTH = 12;
+    private static final int KEY_LENGTH = 20;
+    private static final Pattern SHA1_PREFIX_PATTERN = Pattern.compile("^[0-9a-fA-F]{1,40}$");
+
+    private final File file;
+    private volatile Entries entries;
+    private boolean dirty;
+
+    private JobSha1Index(File file, Entries entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * @return the index read from the file or an empty index if the file doesn't exist or can't be read
+     */
+    static JobSha1Index load(File file) {
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == MAGIC) {
+                    int watermark = in.readInt();
+                    int size = in.readInt();
+                    if (size >= 0 && file.length() == HEADER_LENGTH + (long) size * (KEY_LENGTH + 4)) {
+                        byte[] keys = new byte[size * KEY_LENGTH];
+                        in.readFully(keys);
+                        int[] numbers = new int[size];
+                        for (int i = 0; i < size; i++) {
+                            numbers[i] = in.readInt();
+                        }
+                        return new JobSha1Index(file, new Entries(keys, numbers, size, watermark));
+                    }
+                }
+                LOGGER.log(Level.WARNING, "Ignoring corrupt build index {0}", file);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to read build index " + file, e);
+            }
+        }
+        return new JobSha1Index(file, new Entries(new byte[0], new int[0], 0, 0));
+    }
+
+    /**
+     * @return the highest build number up to which all builds have been indexed
+     */
+    int getWatermark() {
+        return entries.watermark;
+    }
+
+    int size() {
+        return entries.size;
+    }
+
+    /**
+     * @param sha1 a full or abbreviated SHA1
+     * @return the numbers of the builds with a SHA1 starting with the given one, the newest build first
+     */
+    List<Integer> find(String sha1) {
+        if (sha1 == null || !SHA1_PREFIX_PATTERN.matcher(sha1).matches()) {
+            return Collections.emptyList();
+        }
+        Entries snapshot = entries;
+        String prefix = sha1.toLowerCase(Locale.ENGLISH);
+        byte[] low = toKey(prefix + "0000000000000000000000000000000000000000".substring(prefix.length()));
+        if (prefix.length() == 40 && !snapshot.bloomFilter.mightContain(low)) {
+            return Collections.emptyList();
+        }
+        byte[] high = toKey(prefix + "ffffffffffffffffffffffffffffffffffffffff".substring(prefix.length()));
+        TreeSet<Integer> result = new TreeSet<>(Collections.reverseOrder());
+        for (int i = snapshot.lowerBound(low, Integer.MAX_VALUE); i < snapshot.size && snapshot.compare(i, high) <= 0; i++) {
+            result.add(snapshot.numbers[i]);
+        }
+        return new ArrayList<>(result);
+    }
+
+    synchronized void add(int number, Collection<String> sha1s) {
+        Entries updated = entries;
+        for (String sha1 : sha1s) {
+            updated = updated.with(toKey(sha1.toLowerCase(Locale.ENGLISH)), number);
+        }
+        if (updated != entries) {
+            entries = updated;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Adds the SHA1s of many builds at once, e.g. when a job is indexed for the first time. The keys are sorted and the
+     * Bloom filter is built a single time, where {@link #add(int, Collection)} copies both for every key.
+     */
+    synchronized void addAll(Map<Integer, ? extends Collection<String>> sha1sByNumber) {
+        List<Key> added = new ArrayList<>();
+        for (Map.Entry<Integer, ? extends Collection<String>> entry : sha1sByNumber.entrySet()) {
+            for (String sha1 : entry.getValue()) {
+                added.add(new Key(toKey(sha1.toLowerCase(Locale.ENGLISH)), entry.getKey()));
+            }
+        }
+        if (!added.isEmpty()) {
+            entries = entries.withAll(added);
+            dirty = true;
+        }
+    }
+
+    synchronized void remove(int number) {
+        Entries updated = entries.without(number);
+        if (updated != entries) {
+            entries = updated;
+            dirty = true;
+        }
+    }
+
+    synchronized void setWatermark(int watermark) {
+        if (watermark != entries.watermark) {
+            entries = entries.withWatermark(watermark);
+            dirty = true;
+        }
+    }
+
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        Entries snapshot = entries;
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(snapshot.watermark);
+            out.writeInt(snapshot.size);
+            out.write(snapshot.keys, 0, snapshot.size * KEY_LENGTH);
+            for (int i = 0; i < snapshot.size; i++) {
+                out.writeInt(snapshot.numbers[i]);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private static byte[] toKey(String sha1) {
+        byte[] key = new byte[KEY_LENGTH];
+        ObjectId.fromString(sha1).copyRawTo(key, 0);
+        return key;
+    }
+
+    private static final class Entries {
+        private final byte[] keys;
+        private final int[] numbers;
+        private final int size;
+        private final int watermark;
+        private final int bloomFilterCapacity;
+        private final BloomFilter<byte[]> bloomFilter;
+
+        private Entries(byte[] keys, int[] numbers, int size, int watermark) {
+            this.keys = keys;
+            this.numbers = numbers;
+            this.size = size;
+            this.watermark = watermark;
+            this.bloomFilterCapacity = Math.max(1024, size * 2);
+            this.bloomFilter = BloomFilter.create(Funnels.byteArrayFunnel(), bloomFilterCapacity, 0.01);
+            for (int i = 0; i < size; i++) {
+                bloomFilter.put(getKey(i));
+            }
+        }
+
+        private Entries(byte[] keys, int[] numbers, int size, int watermark, int bloomFilterCapacity, BloomFilter<byte[]> bloomFilter) {
+            this.keys = keys;
+            this.numbers = numbers;
+            this.size = size;
+            this.watermark = watermark;
+            this.bloomFilterCapacity = bloomFilterCapacity;
+            this.bloomFilter = bloomFilter;
+        }
+
+        private Entries with(byte[] key, int number) {
+            int index = lowerBound(key, number);
+            if (index < size && compare(index, key) == 0 && numbers[index] == number) {
+                return this;
+            }
+            byte[] newKeys = new byte[(size + 1) * KEY_LENGTH];
+            int[] newNumbers = new int[size + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index * KEY_LENGTH);
+            System.arraycopy(key, 0, newKeys, index * KEY_LENGTH, KEY_LENGTH);
+            System.arraycopy(keys, index * KEY_LENGTH, newKeys, (index + 1) * KEY_LENGTH, (size - index) * KEY_LENGTH);
+            System.arraycopy(numbers, 0, newNumbers, 0, index);
+            newNumbers[index] = number;
+            System.arraycopy(numbers, index, newNumbers, index + 1, size - index);
+            if (size + 1 > bloomFilterCapacity) {
+                // the filter has reached its expected number of keys, size it anew
+                return new Entries(newKeys, newNumbers, size + 1, watermark);
+            }
+            BloomFilter<byte[]> newBloomFilter = bloomFilter.copy();
+            newBloomFilter.put(key);
+            return new Entries(newKeys, newNumbers, size + 1, watermark, bloomFilterCapacity, newBloomFilter);
+        }
+
+        private Entries withAll(List<Key> added) {
+            List<Key> all = new ArrayList<>(size + added.size());
+            for (int i = 0; i < size; i++) {
+                all.add(new Key(getKey(i), numbers[i]));
+            }
+            all.addAll(added);
+            Collections.sort(all);
+            byte[] newKeys = new byte[all.size() * KEY_LENGTH];
+            int[] newNumbers = new int[all.size()];
+            int newSize = 0;
+            Key previous = null;
+            for (Key key : all) {
+                if (previous == null || previous.compareTo(key) != 0) {
+                    System.arraycopy(key.sha1, 0, newKeys, newSize * KEY_LENGTH, KEY_LENGTH);
+                    newNumbers[newSize++] = key.number;
+                    previous = key;
+                }
+            }
+            return new Entries(Arrays.copyOf(newKeys, newSize * KEY_LENGTH), Arrays.copyOf(newNumbers, newSize), newSize, watermark);
+        }
+
+        private Entries without(int number) {
+            int remaining = 0;
+            for (int i = 0; i < size; i++) {
+                if (numbers[i] != number) {
+                    remaining++;
+                }
+            }
+            if (remaining == size) {
+                return this;
+            }
+            byte[] newKeys = new byte[remaining * KEY_LENGTH];
+            int[] newNumbers = new int[remaining];
+            for (int i = 0, j = 0; i < size; i++) {
+                if (numbers[i] != number) {
+                    System.arraycopy(keys, i * KEY_LENGTH, newKeys, j * KEY_LENGTH, KEY_LENGTH);
+                    newNumbers[j++] = numbers[i];
+                }
+            }
+            return new Entries(newKeys, newNumbers, remaining, watermark);
+        }
+
+        private Entries withWatermark(int watermark) {
+            return new Entries(keys, numbers, size, watermark, bloomFilterCapacity, bloomFilter);
+        }
+
+        /**
+         * @return the index of the first entry that isn't ordered before the given key and build number, keys are
+         * sorted ascending and the builds of the same key descending
+         */
+        private int lowerBound(byte[] key, int number) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int compare = compare(mid, key);
+                if (compare < 0 || (compare == 0 && numbers[mid] > number)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(int index, byte[] key) {
+            int offset = index * KEY_LENGTH;
+            for (int i = 0; i < KEY_LENGTH; i++) {
+                int compare = (keys[offset + i] & 0xff) - (key[i] & 0xff);
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return 0;
+        }
+
+        private byte[] getKey(int index) {
+            byte[] key = new byte[KEY_LENGTH];
+            System.arraycopy(keys, index * KEY_LENGTH, key, 0, KEY_LENGTH);
+            return key;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final byte[] sha1;
+        private final int number;
+
+        private Key(byte[] sha1, int number) {
+            this.sha1 = sha1;
+            this.number = number;
+        }
+
+        /**
+         * Orders like the entries, keys ascending and the builds of the same key descending.
+         */
+        public int compareTo(Key other) {
+            for (int i = 0; i < KEY_LENGTH; i++) {
+                int compare = (sha1[i] & 0xff) - (other.sha1[i] & 0xff);
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return Integer.compare(other.number, number);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.git.util.BuildData;
+import jenkins.util.Timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Index from the SHA1s built by a job to the numbers of the builds, so that looking up the build of a commit doesn't
+ * load every build of the job from disk.
+ *
+ * A job is indexed completely on its first lookup. After that only the builds newer than the watermark of the index
+ * are looked at, the watermark is never moved past a build that is still running. The index of a job is saved to
+ * {@value #FILE_NAME} in its directory.
+ */
+public final class Sha1BuildIndex {
+
+    static final String FILE_NAME = "gitlab-sha1-index.bin";
+    static final int MAX_JOBS = Integer.getInteger(Sha1BuildIndex.class.getName() + ".maxJobs", 1000);
+    static final int SAVE_DELAY_SECONDS = 30;
+
+    private static final Logger LOGGER = Logger.getLogger(Sha1BuildIndex.class.getName());
+    private static final Sha1BuildIndex INSTANCE = new Sha1BuildIndex();
+
+    private final Cache<String, JobSha1Index> indexes = CacheBuilder.newBuilder()
+        .maximumSize(MAX_JOBS)
+        .removalListener(new RemovalListener<String, JobSha1Index>() {
+            public void onRemoval(RemovalNotification<String, JobSha1Index> notification) {
+                if (notification.getCause() != RemovalCause.EXPLICIT) {
+                    save(notification.getKey(), notification.getValue());
+                }
+            }
+        })
+        .build();
+    private boolean saveScheduled;
+
+    private Sha1BuildIndex() { }
+
+    public static Sha1BuildIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param sha1 a full or abbreviated SHA1
+     * @return the numbers of the builds of the job that have built a SHA1 starting with the given one, the newest
+     * build first. The builds still have to be checked, as the index doesn't know whether they have been merge builds.
+     */
+    public List<Integer> findBuildNumbers(Job<?, ?> job, String sha1) {
+        return getIndex(job).find(sha1);
+    }
+
+    private JobSha1Index getIndex(final Job<?, ?> job) {
+        JobSha1Index index;
+        try {
+            index = indexes.get(job.getFullName(), new Callable<JobSha1Index>() {
+                public JobSha1Index call() {
+                    return JobSha1Index.load(new File(job.getRootDir(), FILE_NAME));
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        Run<?, ?> lastBuild = job.getLastBuild();
+        if (lastBuild != null && lastBuild.getNumber() > index.getWatermark()) {
+            catchUp(job, index);
+        }
+        return index;
+    }
+
+    private void catchUp(Job<?, ?> job, JobSha1Index index) {
+        synchronized (index) {
+            final Map<Integer, Set<String>> sha1sByNumber = new LinkedHashMap<>();
+            int watermark = BuildWatermark.walk(job, index.getWatermark(), new BuildWatermark.Visitor() {
+                public void visit(Run<?, ?> build) {
+                    sha1sByNumber.put(build.getNumber(), getSha1s(build));
+                }
+            });
+            index.addAll(sha1sByNumber);
+            index.setWatermark(watermark);
+            LOGGER.log(Level.FINE, "Indexed {0} builds of {1}", toArray(sha1sByNumber.size(), job.getFullName()));
+        }
+        scheduleSave();
+    }
+
+    private void add(Run<?, ?> build) {
+        JobSha1Index index = indexes.getIfPresent(build.getParent().getFullName());
+        if (index != null) {
+            index.add(build.getNumber(), getSha1s(build));
+            scheduleSave();
+        }
+    }
+
+    private void remove(Run<?, ?> build) {
+        JobSha1Index index = indexes.getIfPresent(build.getParent().getFullName());
+        if (index != null) {
+            index.remove(build.getNumber());
+            scheduleSave();
+        }
+    }
+
+    private void invalidate(String fullName) {
+        indexes.invalidate(fullName);
+    }
+
+    private Set<String> getSha1s(Run<?, ?> build) {
+        Set<String> result = new LinkedHashSet<>();
+        BuildData data = build.getAction(BuildData.class);
+        if (data != null && data.lastBuild != null) {
+            if (data.lastBuild.getMarked() != null) {
+                result.add(data.lastBuild.getMarked().getSha1String());
+            }
+            if (data.lastBuild.getRevision() != null) {
+                result.add(data.lastBuild.getRevision().getSha1String());
+            }
+        }
+        return result;
+    }
+
+    private synchronized void scheduleSave() {
+        if (!saveScheduled) {
+            saveScheduled = true;
+            Timer.get().schedule(new Runnable() {
+                public void run() {
+                    saveAll();
+                }
+            }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void saveAll() {
+        synchronized (this) {
+            saveScheduled = false;
+        }
+        for (Map.Entry<String, JobSha1Index> entry : indexes.asMap().entrySet()) {
+            save(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void save(String fullName, JobSha1Index index) {
+        try {
+            index.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the build index of " + fullName, e);
+        }
+    }
+
+    @Terminator
+    public static void terminate() {
+        INSTANCE.saveAll();
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            INSTANCE.add(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            INSTANCE.remove(run);
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.invalidate(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.invalidate(oldFullName);
+        }
+    }
+}
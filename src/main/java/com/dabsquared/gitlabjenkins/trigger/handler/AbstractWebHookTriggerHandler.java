@@ -1,7 +1,6 @@
 package com.dabsquared.gitlabjenkins.trigger.handler;
 
 import com.dabsquared.gitlabjenkins.cause.CauseData;
-import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabApi;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
@@ -10,9 +9,8 @@ import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.util.LoggerUtil;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.AbstractProject;
-import hudson.model.Action;
-import hudson.model.CauseAction;
 import hudson.model.Job;
 import hudson.plugins.git.RevisionParameterAction;
 import jenkins.model.Jenkins;
@@ -23,7 +21,6 @@ import org.eclipse.jgit.transport.URIish;
 import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,13 +41,22 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
         String targetBranch = getTargetBranch(hook);
         if (branchFilter.isBranchAllowed(targetBranch)) {
             LOGGER.log(Level.INFO, "{0} triggered for {1}.", LoggerUtil.toArray(job.getFullName(), getTriggerType()));
+            CauseData causeData = retrieveCauseData(hook);
+            if (BuildAvoidance.instance().avoid(job, causeData)) {
+                return;
+            }
             setCommitStatusPendingIfNecessary(job, hook);
-            scheduleBuild(job, createActions(job, hook));
+            scheduleBuild(job, causeData, retrieveRevisionParameter(job, hook));
         } else {
             LOGGER.log(Level.INFO, "branch {0} is not allowed", targetBranch);
         }
     }
 
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        return !(ciSkip && summary.isCiSkip()) && branchFilter.isBranchAllowed(summary.getTargetBranch());
+    }
+
     protected abstract String getTriggerType();
 
     protected abstract boolean isCiSkip(H hook);
@@ -74,16 +80,14 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
         }
     }
 
-    private Action[] createActions(Job<?, ?> job, H hook) {
-        ArrayList<Action> actions = new ArrayList<>();
-        actions.add(new CauseAction(new GitLabWebHookCause(retrieveCauseData(hook))));
+    private RevisionParameterAction retrieveRevisionParameter(Job<?, ?> job, H hook) {
         try {
-            actions.add(createRevisionParameter(hook));
+            return createRevisionParameter(hook);
         } catch (NoRevisionToBuildException e) {
             LOGGER.log(Level.WARNING, "unknown handled situation, dont know what revision to build for req {0} for job {1}",
                     new Object[]{hook, (job != null ? job.getFullName() : null)});
+            return null;
         }
-        return actions.toArray(new Action[actions.size()]);
     }
 
     protected abstract CauseData retrieveCauseData(H hook);
@@ -105,7 +109,7 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
         return null;
     }
 
-    private void scheduleBuild(Job<?, ?> job, Action[] actions) {
+    private void scheduleBuild(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter) {
         int projectBuildDelay = 0;
         if (job instanceof ParameterizedJobMixIn.ParameterizedJob) {
             ParameterizedJobMixIn.ParameterizedJob abstractProject = (ParameterizedJobMixIn.ParameterizedJob) job;
@@ -113,17 +117,8 @@ public abstract class AbstractWebHookTriggerHandler<H extends WebHook> implement
                 projectBuildDelay = abstractProject.getQuietPeriod();
             }
         }
-        retrieveScheduleJob(job).scheduleBuild2(projectBuildDelay, actions);
-    }
-
-    private ParameterizedJobMixIn retrieveScheduleJob(final Job<?, ?> job) {
-        // TODO 1.621+ use standard method
-        return new ParameterizedJobMixIn() {
-            @Override
-            protected Job asJob() {
-                return job;
-            }
-        };
+        projectBuildDelay = AdaptiveQuietPeriod.instance().getQuietPeriod(causeData, projectBuildDelay);
+        BuildCoalescer.instance().schedule(job, causeData, revisionParameter, projectBuildDelay);
     }
 
     public static class BuildStatusUpdate {
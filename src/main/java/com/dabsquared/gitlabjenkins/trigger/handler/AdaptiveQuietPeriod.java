@@ -0,0 +1,203 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives the quiet period of the builds of a ref from how often it has been pushed to recently. The pushes of a ref
+ * within the last {@value #DEFAULT_WINDOW_SECONDS} seconds are kept; once a ref is pushed to more than once in that
+ * window, the quiet period is twice the mean interval between its pushes, so that a burst of pushes is folded into one
+ * build. Refs pushed to less often than every {@code maxQuietPeriod} seconds get the minimum quiet period.
+ *
+ * The same commit of a ref is only counted once, no matter how many jobs it triggers.
+ */
+public final class AdaptiveQuietPeriod {
+
+    static final int DEFAULT_WINDOW_SECONDS = 600;
+    static final int WINDOW_SECONDS = Integer.getInteger(AdaptiveQuietPeriod.class.getName() + ".windowSeconds", DEFAULT_WINDOW_SECONDS);
+    static final int MAX_REFS = Integer.getInteger(AdaptiveQuietPeriod.class.getName() + ".maxRefs", 10000);
+    static final int MAX_PUSHES = 32;
+
+    private static final AdaptiveQuietPeriod INSTANCE = new AdaptiveQuietPeriod(Ticker.systemTicker());
+
+    private final Ticker ticker;
+    private final Cache<String, PushRate> pushRates;
+    private volatile boolean enabled;
+    private volatile int minQuietPeriod;
+    private volatile int maxQuietPeriod;
+
+    AdaptiveQuietPeriod(Ticker ticker) {
+        this.ticker = ticker;
+        this.pushRates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_REFS)
+            .expireAfterAccess(WINDOW_SECONDS, TimeUnit.SECONDS)
+            .ticker(ticker)
+            .build();
+    }
+
+    public static AdaptiveQuietPeriod instance() {
+        return INSTANCE;
+    }
+
+    public void configure(boolean enabled, int minQuietPeriod, int maxQuietPeriod) {
+        this.minQuietPeriod = Math.max(0, minQuietPeriod);
+        this.maxQuietPeriod = Math.max(this.minQuietPeriod, maxQuietPeriod);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinQuietPeriod() {
+        return minQuietPeriod;
+    }
+
+    public int getMaxQuietPeriod() {
+        return maxQuietPeriod;
+    }
+
+    /**
+     * Records the commit of the cause as a push to its source ref.
+     *
+     * @return the quiet period in seconds for the build of the commit, {@code defaultQuietPeriod} if the adaptive quiet
+     * period is disabled
+     */
+    public int getQuietPeriod(CauseData causeData, int defaultQuietPeriod) {
+        if (causeData.getSourceBranch() == null || causeData.getLastCommit() == null) {
+            return enabled ? minQuietPeriod : defaultQuietPeriod;
+        }
+        int quietPeriod = record(causeData.getSourceProjectId() + ":" + causeData.getSourceBranch(), causeData.getLastCommit());
+        return enabled ? quietPeriod : defaultQuietPeriod;
+    }
+
+    /**
+     * @return the estimates of the refs that have been pushed to more than once within the window
+     */
+    public List<Estimate> getEstimates() {
+        List<Estimate> result = new ArrayList<>();
+        long now = ticker.read();
+        for (Map.Entry<String, PushRate> entry : pushRates.asMap().entrySet()) {
+            PushRate pushRate = entry.getValue();
+            synchronized (pushRate) {
+                pushRate.expire(now);
+                if (pushRate.pushes.size() > 1) {
+                    result.add(new Estimate(entry.getKey(), pushRate.pushes.size(), pushRate.getMeanInterval(), getQuietPeriod(pushRate)));
+                }
+            }
+        }
+        return result;
+    }
+
+    int record(String ref, String commit) {
+        PushRate pushRate = getPushRate(ref);
+        synchronized (pushRate) {
+            pushRate.push(commit, ticker.read());
+            return getQuietPeriod(pushRate);
+        }
+    }
+
+    private int getQuietPeriod(PushRate pushRate) {
+        long meanInterval = pushRate.getMeanInterval();
+        if (meanInterval < 0 || meanInterval > maxQuietPeriod) {
+            return minQuietPeriod;
+        }
+        return (int) Math.max(minQuietPeriod, Math.min(maxQuietPeriod, 2 * meanInterval));
+    }
+
+    private PushRate getPushRate(String ref) {
+        try {
+            return pushRates.get(ref, new Callable<PushRate>() {
+                public PushRate call() {
+                    return new PushRate();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The push rate estimated for a ref.
+     */
+    public static final class Estimate {
+        private final String ref;
+        private final int pushes;
+        private final long meanInterval;
+        private final int quietPeriod;
+
+        private Estimate(String ref, int pushes, long meanInterval, int quietPeriod) {
+            this.ref = ref;
+            this.pushes = pushes;
+            this.meanInterval = meanInterval;
+            this.quietPeriod = quietPeriod;
+        }
+
+        /**
+         * @return the id of the GitLab project and the branch, separated by a colon
+         */
+        public String getRef() {
+            return ref;
+        }
+
+        public int getPushes() {
+            return pushes;
+        }
+
+        /**
+         * @return the mean interval between the pushes in seconds
+         */
+        public long getMeanInterval() {
+            return meanInterval;
+        }
+
+        public int getQuietPeriod() {
+            return quietPeriod;
+        }
+    }
+
+    private static class PushRate {
+        private final Deque<Long> pushes = new ArrayDeque<>();
+        private String lastCommit;
+
+        private void push(String commit, long now) {
+            expire(now);
+            if (commit.equals(lastCommit)) {
+                return;
+            }
+            lastCommit = commit;
+            pushes.addLast(now);
+            if (pushes.size() > MAX_PUSHES) {
+                pushes.removeFirst();
+            }
+        }
+
+        private void expire(long now) {
+            long oldest = now - TimeUnit.SECONDS.toNanos(WINDOW_SECONDS);
+            while (!pushes.isEmpty() && pushes.peekFirst() < oldest) {
+                pushes.removeFirst();
+            }
+        }
+
+        /**
+         * @return the mean interval between the pushes in seconds, -1 if there haven't been two pushes
+         */
+        private long getMeanInterval() {
+            if (pushes.size() < 2) {
+                return -1;
+            }
+            return TimeUnit.NANOSECONDS.toSeconds(pushes.peekLast() - pushes.peekFirst()) / (pushes.size() - 1);
+        }
+    }
+}
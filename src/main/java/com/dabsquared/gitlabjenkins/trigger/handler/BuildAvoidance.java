@@ -0,0 +1,77 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
+import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.dabsquared.gitlabjenkins.util.CommitStatusUpdater;
+import hudson.model.AbstractProject;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Skips the builds of commits that a job has already built successfully, e.g. after a fast-forward merge or for a
+ * merge request recreated from the same commit, if the trigger of the job is configured to do so. The result of the
+ * earlier build is published as the commit status of the new ref instead.
+ *
+ * Builds triggered by a comment are never skipped, as they explicitly ask for a rebuild. Neither are the builds of jobs
+ * that don't publish their status with the {@link GitLabCommitStatusPublisher}, e.g. pipelines: the names of their
+ * statuses are only known to their scripts, so the skipped build would leave the commit without them.
+ */
+public final class BuildAvoidance {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildAvoidance.class.getName());
+    private static final BuildAvoidance INSTANCE = new BuildAvoidance();
+
+    private final AtomicLong avoidedCount = new AtomicLong();
+
+    private BuildAvoidance() { }
+
+    public static BuildAvoidance instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return {@code true} if the build for the cause can be skipped, its status has been published already
+     */
+    public boolean avoid(Job<?, ?> job, CauseData causeData) {
+        if (causeData.getActionType() == CauseData.ActionType.NOTE || causeData.getLastCommit() == null) {
+            return false;
+        }
+        GitLabPushTrigger trigger = GitLabPushTrigger.getFromJob(job);
+        if (trigger == null || !trigger.getSkipBuiltCommits() || !(job instanceof AbstractProject)) {
+            return false;
+        }
+        Run<?, ?> build = BuildUtil.getBuildBySHA1WithoutMergeBuilds(job, causeData.getLastCommit());
+        if (build == null || build.isBuilding() || build.getResult() != Result.SUCCESS) {
+            return false;
+        }
+        LOGGER.log(Level.INFO, "{0} has already been built successfully in {1}, skipping the build for {2}",
+                   toArray(causeData.getLastCommit(), build.getFullDisplayName(), causeData.getSourceBranch()));
+        publishStatus(job, build, causeData);
+        avoidedCount.incrementAndGet();
+        return true;
+    }
+
+    public long getAvoidedCount() {
+        return avoidedCount.get();
+    }
+
+    private void publishStatus(Job<?, ?> job, Run<?, ?> build, CauseData causeData) {
+        if (causeData.getSourceProjectId() != null) {
+            GitLabCommitStatusPublisher publisher = ((AbstractProject<?, ?>) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
+            if (publisher != null) {
+                CommitStatusUpdater.updateCommitStatus(build, BuildState.success, publisher.getName(), causeData.getSourceProjectId().toString(),
+                                                       causeData.getLastCommit(), causeData.getSourceBranch());
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
+import com.dabsquared.gitlabjenkins.gitlab.api.GitLabApi;
+import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
+import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
+import com.dabsquared.gitlabjenkins.trigger.priority.BuildPriorities;
+import com.dabsquared.gitlabjenkins.trigger.priority.BuildPriorityAction;
+import com.dabsquared.gitlabjenkins.trigger.priority.PriorityClass;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.plugins.git.RevisionParameterAction;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import jenkins.util.Timer;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Debounces the builds triggered by web hooks.
+ *
+ * Hooks for the same job and ref that arrive within the coalescing window are folded into a single build of the
+ * newest revision. A window of 0 seconds schedules every build right away. The commits of the folded hooks, which have
+ * been set to pending when the hooks were received, are set to canceled.
+ */
+public final class BuildCoalescer {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildCoalescer.class.getName());
+    private static final BuildCoalescer INSTANCE = new BuildCoalescer();
+
+    private final Map<String, PendingBuild> pendingBuilds = new HashMap<>();
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong foldedCount = new AtomicLong();
+    private final AtomicLong queueFoldedCount = new AtomicLong();
+    private volatile int window;
+
+    private BuildCoalescer() { }
+
+    public static BuildCoalescer instance() {
+        return INSTANCE;
+    }
+
+    public void setWindow(int window) {
+        this.window = Math.max(0, window);
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public void schedule(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter, int quietPeriod) {
+        schedule(job, causeData, revisionParameter, quietPeriod, PriorityClass.of(causeData.getActionType()));
+    }
+
+    public void schedule(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter, int quietPeriod,
+                         PriorityClass priorityClass) {
+        int currentWindow = window;
+        if (currentWindow == 0) {
+            scheduleNow(job, causeData, revisionParameter, quietPeriod, priorityClass);
+            return;
+        }
+        final String key = getKey(job, causeData);
+        CauseData superseded;
+        synchronized (pendingBuilds) {
+            PendingBuild pendingBuild = pendingBuilds.get(key);
+            if (pendingBuild == null) {
+                pendingBuilds.put(key, new PendingBuild(job, causeData, revisionParameter, quietPeriod, priorityClass));
+                superseded = null;
+            } else {
+                superseded = pendingBuild.fold(causeData, revisionParameter, priorityClass);
+                foldedCount.incrementAndGet();
+                LOGGER.log(Level.FINE, "Folded hook for {0} into pending build of {1} ({2} hooks folded)",
+                           toArray(key, causeData.getLastCommit(), pendingBuild.folded));
+            }
+        }
+        if (superseded != null) {
+            cancelSuperseded(job, superseded, causeData);
+            return;
+        }
+        Timer.get().schedule(new Runnable() {
+            public void run() {
+                flush(key);
+            }
+        }, currentWindow, TimeUnit.SECONDS);
+    }
+
+    public int getPendingCount() {
+        synchronized (pendingBuilds) {
+            return pendingBuilds.size();
+        }
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount.get();
+    }
+
+    public long getFoldedCount() {
+        return foldedCount.get();
+    }
+
+    /**
+     * @return the number of builds that have been folded into a build already waiting in the queue
+     */
+    public long getQueueFoldedCount() {
+        return queueFoldedCount.get();
+    }
+
+    void queueFolded() {
+        queueFoldedCount.incrementAndGet();
+    }
+
+    /**
+     * Sets the status of a commit that has been set to pending when its hook was received to canceled, as its build
+     * has been folded into the build of a newer commit. The status is set in the background, as builds are folded
+     * while the queue is locked.
+     */
+    static void cancelSuperseded(final Job<?, ?> job, final CauseData superseded, final CauseData newer) {
+        if (superseded.getLastCommit().equals(newer.getLastCommit()) || !(job instanceof AbstractProject)) {
+            return;
+        }
+        final GitLabCommitStatusPublisher publisher = ((AbstractProject<?, ?>) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
+        GitLabConnectionProperty property = job.getProperty(GitLabConnectionProperty.class);
+        final GitLabApi client = property == null ? null : property.getClient();
+        if (publisher == null || client == null) {
+            return;
+        }
+        Timer.get().submit(new Runnable() {
+            public void run() {
+                try {
+                    client.changeBuildStatus(superseded.getSourceProjectId(), superseded.getLastCommit(), BuildState.canceled,
+                                             superseded.getSourceBranch(), publisher.getName(), Jenkins.getInstance().getRootUrl() + job.getUrl(),
+                                             "Superseded by " + newer.getLastCommit());
+                } catch (WebApplicationException | ProcessingException e) {
+                    LOGGER.log(Level.WARNING, "Failed to cancel the status of superseded commit " + superseded.getLastCommit(), e);
+                }
+            }
+        });
+    }
+
+    void flush(String key) {
+        PendingBuild pendingBuild;
+        synchronized (pendingBuilds) {
+            pendingBuild = pendingBuilds.remove(key);
+        }
+        if (pendingBuild != null) {
+            if (pendingBuild.folded > 0) {
+                LOGGER.log(Level.INFO, "Scheduling {0} for {1} after folding {2} hooks",
+                           toArray(pendingBuild.job.getFullName(), pendingBuild.causeData.getLastCommit(), pendingBuild.folded));
+            }
+            scheduleNow(pendingBuild.job, pendingBuild.causeData, pendingBuild.revisionParameter, pendingBuild.quietPeriod,
+                        pendingBuild.priorityClass);
+        }
+    }
+
+    private void scheduleNow(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter, int quietPeriod,
+                             PriorityClass priorityClass) {
+        List<Action> actions = new ArrayList<>();
+        actions.add(new CauseAction(new GitLabWebHookCause(causeData)));
+        actions.add(new BuildPriorityAction(priorityClass, causeData.getTargetProjectId()));
+        if (revisionParameter instanceof FoldableRevisionParameterAction) {
+            actions.add(((FoldableRevisionParameterAction) revisionParameter).withFoldKey(getKey(job, causeData)));
+        } else if (revisionParameter != null) {
+            actions.add(revisionParameter);
+        }
+        scheduledCount.incrementAndGet();
+        retrieveScheduleJob(job).scheduleBuild2(quietPeriod, actions.toArray(new Action[actions.size()]));
+    }
+
+    String getKey(Job<?, ?> job, CauseData causeData) {
+        return job.getFullName() + '#' + causeData.getActionType() + '#' + causeData.getSourceProjectId() + ':' + causeData.getSourceBranch()
+            + "->" + causeData.getTargetBranch();
+    }
+
+    private ParameterizedJobMixIn retrieveScheduleJob(final Job<?, ?> job) {
+        // TODO 1.621+ use standard method
+        return new ParameterizedJobMixIn() {
+            @Override
+            protected Job asJob() {
+                return job;
+            }
+        };
+    }
+
+    private static class PendingBuild {
+        private final Job<?, ?> job;
+        private final int quietPeriod;
+        private CauseData causeData;
+        private RevisionParameterAction revisionParameter;
+        private PriorityClass priorityClass;
+        private int folded;
+
+        private PendingBuild(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter, int quietPeriod,
+                             PriorityClass priorityClass) {
+            this.job = job;
+            this.causeData = causeData;
+            this.revisionParameter = revisionParameter;
+            this.quietPeriod = quietPeriod;
+            this.priorityClass = priorityClass;
+        }
+
+        /**
+         * @return the cause of the hook that has been superseded
+         */
+        private CauseData fold(CauseData newer, RevisionParameterAction newerRevisionParameter, PriorityClass newerPriorityClass) {
+            CauseData superseded = causeData;
+            // keep the newest revision but let the commit range start where the first folded hook started
+            causeData = newer.withBefore(causeData.getBefore());
+            if (newerRevisionParameter != null) {
+                revisionParameter = newerRevisionParameter;
+            }
+            BuildPriorities priorities = BuildPriorities.instance();
+            if (priorities.getPriority(newerPriorityClass) < priorities.getPriority(priorityClass)) {
+                priorityClass = newerPriorityClass;
+            }
+            folded++;
+            return superseded;
+        }
+    }
+}
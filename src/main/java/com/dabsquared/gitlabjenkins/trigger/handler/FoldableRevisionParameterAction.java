@@ -0,0 +1,122 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.trigger.priority.BuildPriorities;
+import com.dabsquared.gitlabjenkins.trigger.priority.BuildPriorityAction;
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.queue.FoldableAction;
+import hudson.plugins.git.RevisionParameterAction;
+import org.eclipse.jgit.transport.URIish;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * The revision to build for a web hook, which supersedes the revision of a build of the same job and ref that is
+ * still waiting in the queue: instead of queueing a second build, the waiting one is changed to build the newer
+ * revision with the newer cause. The waiting build takes the priority of the newer one if that is higher.
+ */
+public class FoldableRevisionParameterAction extends RevisionParameterAction implements FoldableAction {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(FoldableRevisionParameterAction.class.getName());
+
+    private final URIish repositoryUrl;
+    private final String foldKey;
+
+    public FoldableRevisionParameterAction(String commit, URIish repositoryUrl) {
+        this(commit, repositoryUrl, null);
+    }
+
+    private FoldableRevisionParameterAction(String commit, URIish repositoryUrl, String foldKey) {
+        super(commit, repositoryUrl);
+        this.repositoryUrl = repositoryUrl;
+        this.foldKey = foldKey;
+    }
+
+    /**
+     * @param foldKey identifies the job and ref the revision is built for, queued builds with the same key are folded
+     */
+    public FoldableRevisionParameterAction withFoldKey(String foldKey) {
+        return new FoldableRevisionParameterAction(commit, repositoryUrl, foldKey);
+    }
+
+    @Override
+    public boolean shouldSchedule(List<Action> actions) {
+        if (foldKey != null) {
+            for (FoldableRevisionParameterAction other : Util.filter(actions, FoldableRevisionParameterAction.class)) {
+                if (foldKey.equals(other.foldKey)) {
+                    return false;
+                }
+            }
+        }
+        return super.shouldSchedule(actions);
+    }
+
+    public void foldIntoExisting(Queue.Item item, Queue.Task owner, List<Action> otherActions) {
+        // the CauseAction comes first in the actions of the build, so it has already added the newer cause to the queued
+        // build and both causes have to be folded into one even if the revision is the same
+        GitLabWebHookCause newer = getCause(otherActions);
+        GitLabWebHookCause older = getOldestCause(item.getCauses(), newer);
+        if (newer != null && older != null) {
+            // keep the newest revision but let the commit range start where the queued build started
+            List<Cause> causes = new ArrayList<>();
+            causes.add(new GitLabWebHookCause(newer.getData().withBefore(older.getData().getBefore())));
+            for (Cause cause : item.getCauses()) {
+                if (!(cause instanceof GitLabWebHookCause)) {
+                    causes.add(cause);
+                }
+            }
+            item.replaceAction(new CauseAction(causes));
+        }
+        promote(item, otherActions);
+        FoldableRevisionParameterAction existing = item.getAction(FoldableRevisionParameterAction.class);
+        if (existing == null || !commit.equals(existing.commit)) {
+            item.replaceAction(this);
+            if (newer != null && older != null && owner instanceof Job) {
+                BuildCoalescer.cancelSuperseded((Job<?, ?>) owner, older.getData(), newer.getData());
+            }
+        }
+        BuildCoalescer.instance().queueFolded();
+        LOGGER.log(Level.FINE, "Folded {0} into the queued build of {1} for {2}", toArray(commit, owner.getFullDisplayName(), foldKey));
+    }
+
+    private void promote(Queue.Item item, List<Action> otherActions) {
+        BuildPriorities priorities = BuildPriorities.instance();
+        BuildPriorityAction existing = item.getAction(BuildPriorityAction.class);
+        for (BuildPriorityAction newer : Util.filter(otherActions, BuildPriorityAction.class)) {
+            if (existing == null || priorities.getPriority(newer.getPriorityClass()) < priorities.getPriority(existing.getPriorityClass())) {
+                item.replaceAction(newer);
+            }
+        }
+    }
+
+    private GitLabWebHookCause getOldestCause(List<Cause> causes, GitLabWebHookCause newer) {
+        for (Cause cause : causes) {
+            if (cause instanceof GitLabWebHookCause && cause != newer) {
+                return (GitLabWebHookCause) cause;
+            }
+        }
+        return null;
+    }
+
+    private GitLabWebHookCause getCause(List<Action> actions) {
+        for (CauseAction action : Util.filter(actions, CauseAction.class)) {
+            for (Cause cause : action.getCauses()) {
+                if (cause instanceof GitLabWebHookCause) {
+                    return (GitLabWebHookCause) cause;
+                }
+            }
+        }
+        return null;
+    }
+}
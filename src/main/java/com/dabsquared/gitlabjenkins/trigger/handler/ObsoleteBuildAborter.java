@@ -0,0 +1,155 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
+import hudson.model.Computer;
+import hudson.model.Executor;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Result;
+import hudson.model.Run;
+import jenkins.model.CauseOfInterruption;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Aborts the running builds of a job that have become obsolete: builds of a branch once a newer commit has been
+ * pushed to it, and builds of a merge request once it has got a newer commit or has been closed or merged.
+ *
+ * The aborted builds end as {@link Result#ABORTED}, which the commit status publisher and pipeline steps report to
+ * GitLab as {@code canceled}.
+ */
+public final class ObsoleteBuildAborter {
+
+    private static final Logger LOGGER = Logger.getLogger(ObsoleteBuildAborter.class.getName());
+    private static final ObsoleteBuildAborter INSTANCE = new ObsoleteBuildAborter();
+    private static final String NO_COMMIT = "0000000000000000000000000000000000000000";
+
+    private final AtomicLong abortedCount = new AtomicLong();
+
+    private ObsoleteBuildAborter() { }
+
+    public static ObsoleteBuildAborter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Aborts the builds of the pushed branch for other commits, if the pushed commit is the latest one of the branch.
+     */
+    public void onPush(Job<?, ?> job, PushHook hook) {
+        final String ref = hook.getRef();
+        final String after = hook.getAfter();
+        if (ref == null || !ref.startsWith("refs/heads/") || after == null || after.equals(NO_COMMIT)
+            || !RefTipTracker.instance().isCurrent(job, hook)) {
+            return;
+        }
+        final String branch = ref.substring("refs/heads/".length());
+        final Integer projectId = hook.getProjectId();
+        abort(job, new Matcher() {
+            public boolean matches(CauseData data) {
+                return data.getActionType() == CauseData.ActionType.PUSH
+                    && branch.equals(data.getSourceBranch())
+                    && (projectId == null || projectId.equals(data.getSourceProjectId()))
+                    && !after.equals(data.getLastCommit());
+            }
+        }, "Superseded by " + after + " on " + branch);
+    }
+
+    /**
+     * Aborts the builds of the merge request if it has been closed or merged, or if they build an older commit than
+     * the latest one of the merge request.
+     */
+    public void onMergeRequest(Job<?, ?> job, MergeRequestHook hook) {
+        MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
+        if (objectAttributes == null || objectAttributes.getIid() == null) {
+            return;
+        }
+        final Integer iid = objectAttributes.getIid();
+        final Integer projectId = objectAttributes.getTargetProjectId();
+        final String lastCommit;
+        String reason;
+        if (objectAttributes.getState() == State.closed || objectAttributes.getState() == State.merged) {
+            lastCommit = null;
+            reason = "Merge request !" + iid + " has been " + objectAttributes.getState();
+        } else if (RefTipTracker.instance().isCurrent(job, hook)) {
+            lastCommit = objectAttributes.getLastCommit().getId();
+            reason = "Merge request !" + iid + " has been updated to " + lastCommit;
+        } else {
+            return;
+        }
+        abort(job, new Matcher() {
+            public boolean matches(CauseData data) {
+                return (data.getActionType() == CauseData.ActionType.MERGE || data.getActionType() == CauseData.ActionType.NOTE)
+                    && iid.equals(data.getMergeRequestIid())
+                    && (projectId == null || projectId.equals(data.getTargetProjectId()))
+                    && (lastCommit == null || !lastCommit.equals(data.getLastCommit()));
+            }
+        }, reason);
+    }
+
+    public long getAbortedCount() {
+        return abortedCount.get();
+    }
+
+    private void abort(Job<?, ?> job, Matcher matcher, String reason) {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return;
+        }
+        for (Computer computer : jenkins.getComputers()) {
+            List<Executor> executors = new ArrayList<>(computer.getExecutors());
+            executors.addAll(computer.getOneOffExecutors());
+            for (Executor executor : executors) {
+                Queue.Executable executable = executor.getCurrentExecutable();
+                if (executable instanceof Run<?, ?> && isObsolete(job, (Run<?, ?>) executable, matcher)) {
+                    Run<?, ?> build = (Run<?, ?>) executable;
+                    LOGGER.log(Level.INFO, "Aborting {0}: {1}", toArray(build.getFullDisplayName(), reason));
+                    executor.interrupt(Result.ABORTED, new ObsoleteBuildInterruption(reason));
+                    abortedCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private boolean isObsolete(Job<?, ?> job, Run<?, ?> build, Matcher matcher) {
+        if (!build.isBuilding() || !build.getParent().getFullName().equals(job.getFullName())) {
+            return false;
+        }
+        GitLabWebHookCause cause = build.getCause(GitLabWebHookCause.class);
+        return cause != null && matcher.matches(cause.getData());
+    }
+
+    private interface Matcher {
+        boolean matches(CauseData data);
+    }
+
+    /**
+     * Records on the aborted build why it has been aborted.
+     */
+    public static final class ObsoleteBuildInterruption extends CauseOfInterruption {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String reason;
+
+        public ObsoleteBuildInterruption(String reason) {
+            this.reason = reason;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "Aborted by GitLab: " + reason;
+        }
+    }
+}
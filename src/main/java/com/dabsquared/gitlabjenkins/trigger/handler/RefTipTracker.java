@@ -0,0 +1,191 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.model.Job;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Tracks the tips of the refs and merge requests a job has been triggered for, so that web hooks that arrive out of
+ * order don't trigger builds of commits that have already been superseded.
+ *
+ * A push that doesn't continue from the current tip is stale if its {@code after} commit has been superseded by a newer
+ * tip, or if a push from the same {@code before} commit has already been seen, i.e. it has been overtaken by a newer
+ * push. A force push from the current tip back to an older commit is still built.
+ */
+public final class RefTipTracker {
+
+    static final int MAX_REFS = Integer.getInteger(RefTipTracker.class.getName() + ".maxRefs", 10000);
+    static final int MAX_SUPERSEDED = 32;
+    static final String NO_COMMIT = "0000000000000000000000000000000000000000";
+
+    private static final Logger LOGGER = Logger.getLogger(RefTipTracker.class.getName());
+    private static final RefTipTracker INSTANCE = new RefTipTracker();
+
+    private final Cache<String, RefTip> tips = CacheBuilder.newBuilder()
+            .maximumSize(MAX_REFS)
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .build();
+    private final AtomicLong suppressedCount = new AtomicLong();
+
+    private RefTipTracker() { }
+
+    public static RefTipTracker instance() {
+        return INSTANCE;
+    }
+
+    public boolean isStale(Job<?, ?> job, PushHook hook) {
+        if (hook.getRef() == null || hook.getAfter() == null) {
+            return false;
+        }
+        RefTip tip = getTip(getKey(job, hook));
+        boolean stale;
+        synchronized (tip) {
+            stale = tip.push(hook.getBefore(), hook.getAfter());
+        }
+        return suppressIfStale(stale, job, hook.getRef(), hook.getAfter());
+    }
+
+    public boolean isStale(Job<?, ?> job, MergeRequestHook hook) {
+        MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
+        if (objectAttributes == null || objectAttributes.getLastCommit() == null || objectAttributes.getLastCommit().getId() == null) {
+            return false;
+        }
+        RefTip tip = getTip(getKey(job, objectAttributes));
+        boolean stale;
+        synchronized (tip) {
+            stale = tip.update(objectAttributes.getLastCommit().getId(), objectAttributes.getUpdatedAt());
+        }
+        return suppressIfStale(stale, job, "!" + objectAttributes.getIid(), objectAttributes.getLastCommit().getId());
+    }
+
+    /**
+     * @return {@code true} if the {@code after} commit of the push is the latest known tip of its ref
+     */
+    public boolean isCurrent(Job<?, ?> job, PushHook hook) {
+        return hook.getRef() != null && hook.getAfter() != null && isCurrent(getKey(job, hook), hook.getAfter());
+    }
+
+    /**
+     * @return {@code true} if the last commit of the merge request hook is the latest known commit of the merge request
+     */
+    public boolean isCurrent(Job<?, ?> job, MergeRequestHook hook) {
+        MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
+        return objectAttributes != null && objectAttributes.getLastCommit() != null
+            && isCurrent(getKey(job, objectAttributes), objectAttributes.getLastCommit().getId());
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    private boolean suppressIfStale(boolean stale, Job<?, ?> job, String ref, String commit) {
+        if (stale) {
+            suppressedCount.incrementAndGet();
+            LOGGER.log(Level.INFO, "Skipping {0} for {1}, {2} has already been superseded", toArray(job.getFullName(), ref, commit));
+        }
+        return stale;
+    }
+
+    private boolean isCurrent(String key, String commit) {
+        RefTip tip = tips.getIfPresent(key);
+        if (tip == null || commit == null) {
+            return false;
+        }
+        synchronized (tip) {
+            return commit.equals(tip.current);
+        }
+    }
+
+    private String getKey(Job<?, ?> job, PushHook hook) {
+        return job.getFullName() + '#' + hook.getProjectId() + '#' + hook.getRef();
+    }
+
+    private String getKey(Job<?, ?> job, MergeRequestObjectAttributes objectAttributes) {
+        return job.getFullName() + '#' + objectAttributes.getTargetProjectId() + "#!" + objectAttributes.getIid();
+    }
+
+    private RefTip getTip(String key) {
+        try {
+            return tips.get(key, new Callable<RefTip>() {
+                public RefTip call() {
+                    return new RefTip();
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class RefTip {
+        private final Set<String> superseded = new LinkedHashSet<>();
+        private final Set<String> bases = new LinkedHashSet<>();
+        private String current;
+        private Date updatedAt;
+
+        private boolean push(String before, String after) {
+            if (after.equals(current)) {
+                return false;
+            }
+            boolean continuesCurrent = before != null && before.equals(current);
+            if (!continuesCurrent && (superseded.contains(after) || (before != null && bases.contains(before)))) {
+                return true;
+            }
+            supersede(current);
+            supersede(before);
+            if (before != null && !before.equals(NO_COMMIT)) {
+                add(bases, before);
+            }
+            moveTo(after, null);
+            return false;
+        }
+
+        private boolean update(String lastCommit, Date updatedAt) {
+            if (lastCommit.equals(current)) {
+                return false;
+            }
+            if (superseded.contains(lastCommit) && (updatedAt == null || this.updatedAt == null || !updatedAt.after(this.updatedAt))) {
+                return true;
+            }
+            supersede(current);
+            moveTo(lastCommit, updatedAt);
+            return false;
+        }
+
+        private void moveTo(String commit, Date updatedAt) {
+            superseded.remove(commit);
+            current = commit;
+            this.updatedAt = updatedAt;
+        }
+
+        private void supersede(String commit) {
+            if (commit != null) {
+                add(superseded, commit);
+            }
+        }
+
+        private static void add(Set<String> commits, String commit) {
+            commits.add(commit);
+            if (commits.size() > MAX_SUPERSEDED) {
+                Iterator<String> iterator = commits.iterator();
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+}
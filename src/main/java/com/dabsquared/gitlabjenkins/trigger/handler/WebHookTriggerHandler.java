@@ -2,6 +2,7 @@ package com.dabsquared.gitlabjenkins.trigger.handler;
 
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.WebHook;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.Job;
 
 /**
@@ -10,4 +11,9 @@ import hudson.model.Job;
 public interface WebHookTriggerHandler<H extends WebHook> {
 
     void handle(Job<?, ?> job, H hook, boolean ciSkip, BranchFilter branchFilter);
+
+    /**
+     * @return {@code false} if {@link #handle} certainly won't trigger a build for the hook with the given summary
+     */
+    boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter);
 }
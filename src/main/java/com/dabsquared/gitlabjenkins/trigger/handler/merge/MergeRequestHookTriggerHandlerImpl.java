@@ -8,7 +8,10 @@ import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.handler.FoldableRevisionParameterAction;
+import com.dabsquared.gitlabjenkins.trigger.handler.RefTipTracker;
 import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.plugins.git.RevisionParameterAction;
@@ -42,11 +45,17 @@ class MergeRequestHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<M
         MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
         if (allowedStates.contains(objectAttributes.getState())
             && isLastCommitNotYetBuild(job, hook)
-            && isNotSkipWorkInProgressMergeRequest(objectAttributes)) {
+            && isNotSkipWorkInProgressMergeRequest(objectAttributes)
+            && !RefTipTracker.instance().isStale(job, hook)) {
             super.handle(job, hook, ciSkip, branchFilter);
         }
     }
 
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        return allowedStates.contains(toState(summary.getState())) && super.accepts(summary, ciSkip, branchFilter);
+    }
+
     @Override
     protected boolean isCiSkip(MergeRequestHook hook) {
         return hook.getObjectAttributes() != null
@@ -97,7 +106,7 @@ class MergeRequestHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<M
 
     @Override
     protected RevisionParameterAction createRevisionParameter(MergeRequestHook hook) throws NoRevisionToBuildException {
-        return new RevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
+        return new FoldableRevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
     }
 
     @Override
@@ -120,6 +129,14 @@ class MergeRequestHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<M
         }
     }
 
+    private State toState(String state) {
+        try {
+            return state == null ? null : State.valueOf(state);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     private boolean isLastCommitNotYetBuild(Job<?, ?> project, MergeRequestHook hook) {
         MergeRequestObjectAttributes objectAttributes = hook.getObjectAttributes();
         if (objectAttributes != null && objectAttributes.getLastCommit() != null) {
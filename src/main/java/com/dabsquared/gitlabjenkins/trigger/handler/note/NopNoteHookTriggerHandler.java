@@ -2,6 +2,7 @@ package com.dabsquared.gitlabjenkins.trigger.handler.note;
 
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.Job;
 
 /**
@@ -12,4 +13,9 @@ class NopNoteHookTriggerHandler implements NoteHookTriggerHandler {
     public void handle(Job<?, ?> job, NoteHook hook, boolean ciSkip, BranchFilter branchFilter) {
         // nothing to do
     }
+
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        return false;
+    }
 }
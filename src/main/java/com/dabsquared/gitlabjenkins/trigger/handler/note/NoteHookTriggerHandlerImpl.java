@@ -5,12 +5,16 @@ import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.handler.FoldableRevisionParameterAction;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.Job;
 import hudson.plugins.git.RevisionParameterAction;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
 import static com.dabsquared.gitlabjenkins.trigger.handler.builder.generated.BuildStatusUpdateBuilder.buildStatusUpdate;
@@ -22,10 +26,10 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
 
     private static final Logger LOGGER = Logger.getLogger(NoteHookTriggerHandlerImpl.class.getName());
 
-    private final String noteRegex;
+    private final Pattern notePattern;
 
     NoteHookTriggerHandlerImpl(String noteRegex) {
-        this.noteRegex = noteRegex;
+        this.notePattern = compile(noteRegex);
     }
 
     @Override
@@ -35,6 +39,11 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
         }
     }
 
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        return summary.getNote() != null && isValidTriggerPhrase(summary.getNote()) && super.accepts(summary, ciSkip, branchFilter);
+    }
+
     @Override
     protected boolean isCiSkip(NoteHook hook) {
         return hook.getMergeRequest() != null
@@ -85,7 +94,7 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
 
     @Override
     protected RevisionParameterAction createRevisionParameter(NoteHook hook) throws NoRevisionToBuildException {
-        return new RevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
+        return new FoldableRevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
     }
 
     @Override
@@ -108,11 +117,22 @@ class NoteHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<NoteHook>
         }
     }
 
+    private Pattern compile(String noteRegex) {
+        if (StringUtils.isEmpty(noteRegex)) {
+            return null;
+        }
+        try {
+            return Pattern.compile(noteRegex);
+        } catch (PatternSyntaxException e) {
+            LOGGER.log(Level.WARNING, "Invalid note regex: " + noteRegex, e);
+            return null;
+        }
+    }
+
     private boolean isValidTriggerPhrase(String note) {
-        if (StringUtils.isEmpty(this.noteRegex)) {
+        if (notePattern == null) {
             return false;
         }
-        final Pattern pattern = Pattern.compile(this.noteRegex);
-        return pattern.matcher(note).matches();
+        return notePattern.matcher(note).matches();
     }
 }
@@ -0,0 +1,204 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import com.dabsquared.gitlabjenkins.util.ACLUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Runs the rebuilds of the open merge requests triggered by pushes to their target branch in the background, on
+ * {@value #DEFAULT_THREADS} threads by default. A wave that is submitted while an older wave for the same job and
+ * branch is still waiting replaces the older one, so repeated pushes to a target branch rebuild the merge requests once.
+ *
+ * The calls to the GitLab API made by the waves are limited to {@value #DEFAULT_PROJECT_RATE} per second for each
+ * GitLab project.
+ */
+public final class OpenMergeRequestFanOut {
+
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_PROJECT_RATE = 10;
+    static final int THREADS = Integer.getInteger(OpenMergeRequestFanOut.class.getName() + ".threads", DEFAULT_THREADS);
+    static final int PROJECT_RATE = Integer.getInteger(OpenMergeRequestFanOut.class.getName() + ".projectRate", DEFAULT_PROJECT_RATE);
+
+    private static final Logger LOGGER = Logger.getLogger(OpenMergeRequestFanOut.class.getName());
+    private static final OpenMergeRequestFanOut INSTANCE = new OpenMergeRequestFanOut();
+
+    private final Map<String, Runnable> pendingWaves = new HashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Cache<Integer, RateLimiter> rateLimiters = CacheBuilder.newBuilder()
+        .maximumSize(1000)
+        .expireAfterAccess(10, TimeUnit.MINUTES)
+        .build();
+    private final AtomicInteger runningWaves = new AtomicInteger();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong mergeRequestCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong failedMergeRequestCount = new AtomicLong();
+    private final AtomicLong triggeredCount = new AtomicLong();
+
+    private OpenMergeRequestFanOut() {
+        int threads = Math.max(1, THREADS);
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                          new NamingThreadFactory(new DaemonThreadFactory(), "GitLab open merge request fan-out"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static OpenMergeRequestFanOut instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Runs the wave in the background, unless a wave with the same key is still waiting, which is then replaced.
+     *
+     * @param key usually the full name of the job, the GitLab project and the pushed ref
+     */
+    void submit(final String key, Runnable wave) {
+        submittedCount.incrementAndGet();
+        synchronized (pendingWaves) {
+            if (pendingWaves.put(key, wave) != null) {
+                coalescedCount.incrementAndGet();
+                LOGGER.log(Level.FINE, "Replaced the waiting open merge request wave for {0}", key);
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            public void run() {
+                runWave(key);
+            }
+        });
+    }
+
+    /**
+     * Blocks until the GitLab project may be called again.
+     */
+    void acquire(Integer projectId) {
+        if (PROJECT_RATE > 0 && projectId != null) {
+            getRateLimiter(projectId).acquire();
+        }
+    }
+
+    void mergeRequestsFound(int count) {
+        mergeRequestCount.addAndGet(count);
+    }
+
+    void mergeRequestProcessed() {
+        processedCount.incrementAndGet();
+    }
+
+    void mergeRequestFailed() {
+        failedMergeRequestCount.incrementAndGet();
+    }
+
+    void buildTriggered() {
+        triggeredCount.incrementAndGet();
+    }
+
+    public int getPendingWaveCount() {
+        synchronized (pendingWaves) {
+            return pendingWaves.size();
+        }
+    }
+
+    public int getRunningWaveCount() {
+        return runningWaves.get();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return the number of open merge requests the waves have found
+     */
+    public long getMergeRequestCount() {
+        return mergeRequestCount.get();
+    }
+
+    /**
+     * @return the number of open merge requests the waves have processed so far
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * @return the number of open merge requests the waves have failed to rebuild
+     */
+    public long getFailedMergeRequestCount() {
+        return failedMergeRequestCount.get();
+    }
+
+    public long getTriggeredCount() {
+        return triggeredCount.get();
+    }
+
+    private void runWave(String key) {
+        final Runnable wave;
+        synchronized (pendingWaves) {
+            wave = pendingWaves.remove(key);
+        }
+        if (wave == null) {
+            return;
+        }
+        runningWaves.incrementAndGet();
+        try {
+            ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Void>() {
+                public Void invoke() {
+                    wave.run();
+                    return null;
+                }
+            });
+            completedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Failed to rebuild the open merge requests for " + key, e);
+        } finally {
+            runningWaves.decrementAndGet();
+        }
+        LOGGER.log(Level.FINE, "Finished open merge request wave for {0}, {1} waves waiting", toArray(key, getPendingWaveCount()));
+    }
+
+    RateLimiter getRateLimiter(Integer projectId) {
+        try {
+            return rateLimiters.get(projectId, new Callable<RateLimiter>() {
+                public RateLimiter call() {
+                    return RateLimiter.create(PROJECT_RATE);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
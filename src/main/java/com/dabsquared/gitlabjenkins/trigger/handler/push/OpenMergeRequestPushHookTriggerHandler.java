@@ -2,21 +2,25 @@ package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.cause.CauseData;
-import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionProperty;
 import com.dabsquared.gitlabjenkins.gitlab.api.GitLabApi;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.Branch;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.BuildState;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
 import com.dabsquared.gitlabjenkins.gitlab.api.model.Project;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Commit;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.State;
 import com.dabsquared.gitlabjenkins.publisher.GitLabCommitStatusPublisher;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
+import com.dabsquared.gitlabjenkins.trigger.handler.AdaptiveQuietPeriod;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildAvoidance;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildCoalescer;
+import com.dabsquared.gitlabjenkins.trigger.handler.FoldableRevisionParameterAction;
+import com.dabsquared.gitlabjenkins.trigger.priority.PriorityClass;
 import com.dabsquared.gitlabjenkins.util.LoggerUtil;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.AbstractProject;
-import hudson.model.Action;
-import hudson.model.CauseAction;
 import hudson.model.Job;
 import hudson.plugins.git.RevisionParameterAction;
 import jenkins.model.Jenkins;
@@ -27,7 +31,8 @@ import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -49,17 +54,34 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
     }
 
     @Override
-    public void handle(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter) {
+    public void handle(final Job<?, ?> job, final PushHook hook, final boolean ciSkip, final BranchFilter branchFilter) {
+        if (job instanceof AbstractProject<?, ?> && hook.getProjectId() != null) {
+            OpenMergeRequestFanOut.instance().submit(job.getFullName() + '#' + hook.getProjectId() + '#' + hook.getRef(), new Runnable() {
+                public void run() {
+                    handleOpenMergeRequests((AbstractProject<?, ?>) job, hook, ciSkip, branchFilter);
+                }
+            });
+        }
+    }
+
+    private void handleOpenMergeRequests(AbstractProject<?, ?> project, PushHook hook, boolean ciSkip, BranchFilter branchFilter) {
         try {
-            if (job instanceof AbstractProject<?, ?>) {
-                AbstractProject<?, ?> project = (AbstractProject<?, ?>) job;
-                GitLabConnectionProperty property = job.getProperty(GitLabConnectionProperty.class);
-                final GitLabPushTrigger trigger = project.getTrigger(GitLabPushTrigger.class);
-                Integer projectId = hook.getProjectId();
-                if (property != null && property.getClient() != null && projectId != null && trigger != null) {
-                    GitLabApi client = property.getClient();
-                    for (MergeRequest mergeRequest : getOpenMergeRequests(client, projectId.toString())) {
-                        handleMergeRequest(job, hook, ciSkip, branchFilter, client, mergeRequest);
+            GitLabConnectionProperty property = project.getProperty(GitLabConnectionProperty.class);
+            final GitLabPushTrigger trigger = project.getTrigger(GitLabPushTrigger.class);
+            Integer projectId = hook.getProjectId();
+            if (property != null && property.getClient() != null && trigger != null) {
+                GitLabApi client = property.getClient();
+                List<MergeRequest> mergeRequests = getOpenMergeRequests(client, projectId);
+                OpenMergeRequestFanOut.instance().mergeRequestsFound(mergeRequests.size());
+                for (MergeRequest mergeRequest : mergeRequests) {
+                    try {
+                        handleMergeRequest(project, hook, ciSkip, branchFilter, client, mergeRequest);
+                    } catch (WebApplicationException | ProcessingException | RuntimeException e) {
+                        OpenMergeRequestFanOut.instance().mergeRequestFailed();
+                        LOGGER.log(Level.WARNING, "Failed to rebuild open merge request #" + mergeRequest.getIid() + " for " + project.getFullName()
+                            + ": " + e.getMessage(), e);
+                    } finally {
+                        OpenMergeRequestFanOut.instance().mergeRequestProcessed();
                     }
                 }
             }
@@ -68,17 +90,42 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
         }
     }
 
-    private List<MergeRequest> getOpenMergeRequests(GitLabApi client, String projectId) {
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        // the filters apply to the open merge requests, which are only known to the GitLab server
+        return true;
+    }
+
+    /**
+     * @return the open merge requests of the project, the most recently updated first
+     */
+    private List<MergeRequest> getOpenMergeRequests(GitLabApi client, Integer projectId) {
         List<MergeRequest> result = new ArrayList<>();
         Integer page = 1;
         do {
-            List<MergeRequest> mergeRequests = client.getMergeRequests(projectId, State.opened, page, 100);
+            OpenMergeRequestFanOut.instance().acquire(projectId);
+            List<MergeRequest> mergeRequests = client.getMergeRequests(projectId.toString(), State.opened, page, 100);
             result.addAll(mergeRequests);
             page = mergeRequests.isEmpty() ? null : page + 1;
         } while (page != null);
+        sortByActivity(result);
         return result;
     }
 
+    /**
+     * Sorts the merge requests so the most recently updated come first and those without an update time last.
+     */
+    static void sortByActivity(List<MergeRequest> mergeRequests) {
+        Collections.sort(mergeRequests, new Comparator<MergeRequest>() {
+            public int compare(MergeRequest o1, MergeRequest o2) {
+                if (o1.getUpdatedAt() == null || o2.getUpdatedAt() == null) {
+                    return o1.getUpdatedAt() == o2.getUpdatedAt() ? 0 : (o1.getUpdatedAt() == null ? 1 : -1);
+                }
+                return o2.getUpdatedAt().compareTo(o1.getUpdatedAt());
+            }
+        });
+    }
+
     private void handleMergeRequest(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter, GitLabApi client, MergeRequest mergeRequest) {
         if (ciSkip && mergeRequest.getDescription() != null && mergeRequest.getDescription().contains("[ci-skip]")) {
             LOGGER.log(Level.INFO, "Skipping MR " + mergeRequest.getTitle() + " due to ci-skip.");
@@ -97,14 +144,19 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
             LOGGER.log(Level.INFO, "{0} triggered for push to target branch of open merge request #{1}.",
                     LoggerUtil.toArray(job.getFullName(), mergeRequest.getId()));
 
+            OpenMergeRequestFanOut.instance().acquire(mergeRequest.getSourceProjectId());
             Branch branch = client.getBranch(mergeRequest.getSourceProjectId().toString(), sourceBranch);
+            OpenMergeRequestFanOut.instance().acquire(mergeRequest.getSourceProjectId());
             Project project = client.getProject(mergeRequest.getSourceProjectId().toString());
             String commit = branch.getCommit().getId();
+            CauseData causeData = retrieveCauseData(hook, project, mergeRequest, branch);
+            if (BuildAvoidance.instance().avoid(job, causeData)) {
+                return;
+            }
             setCommitStatusPendingIfNecessary(job, mergeRequest.getSourceProjectId(), commit, branch.getName());
 
-            List<Action> actions = Arrays.<Action>asList(new CauseAction(new GitLabWebHookCause(retrieveCauseData(hook, project, mergeRequest, branch))),
-                                                         new RevisionParameterAction(commit, retrieveUrIish(hook)));
-            scheduleBuild(job, actions.toArray(new Action[actions.size()]));
+            scheduleBuild(job, causeData, new FoldableRevisionParameterAction(commit, retrieveUrIish(hook)));
+            OpenMergeRequestFanOut.instance().buildTriggered();
         }
     }
 
@@ -132,18 +184,30 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
                 .withTargetNamespace(hook.getProject().getNamespace())
                 .withTargetRepoSshUrl(hook.getRepository().getGitSshUrl())
                 .withTargetRepoHttpUrl(hook.getRepository().getGitHttpUrl())
-                .withTriggeredByUser(hook.getCommits().get(0).getAuthor().getName())
+                .withTriggeredByUser(retrievePushedBy(hook))
                 .withLastCommit(branch.getCommit().getId())
                 .withTargetProjectUrl(project.getWebUrl())
                 .build();
     }
 
+    private String retrievePushedBy(PushHook hook) {
+        if (hook.getUserName() != null) {
+            return hook.getUserName();
+        }
+        List<Commit> commits = hook.getCommits();
+        if (commits != null && !commits.isEmpty()) {
+            return commits.get(commits.size() - 1).getAuthor().getName();
+        }
+        return null;
+    }
+
     private void setCommitStatusPendingIfNecessary(Job<?, ?> job, Integer projectId, String commit, String ref) {
         if (job instanceof AbstractProject && ((AbstractProject) job).getPublishersList().get(GitLabCommitStatusPublisher.class) != null) {
             GitLabCommitStatusPublisher publisher =
                 (GitLabCommitStatusPublisher) ((AbstractProject) job).getPublishersList().get(GitLabCommitStatusPublisher.class);
             GitLabApi client = job.getProperty(GitLabConnectionProperty.class).getClient();
             try {
+                OpenMergeRequestFanOut.instance().acquire(projectId);
                 client.changeBuildStatus(projectId, commit, BuildState.pending, ref, publisher.getName(),
                                          Jenkins.getInstance().getRootUrl() + job.getUrl() + job.getNextBuildNumber(), null);
             } catch (WebApplicationException | ProcessingException e) {
@@ -152,7 +216,7 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
         }
     }
 
-    private void scheduleBuild(Job<?, ?> job, Action[] actions) {
+    private void scheduleBuild(Job<?, ?> job, CauseData causeData, RevisionParameterAction revisionParameter) {
         int projectBuildDelay = 0;
         if (job instanceof ParameterizedJobMixIn.ParameterizedJob) {
             ParameterizedJobMixIn.ParameterizedJob abstractProject = (ParameterizedJobMixIn.ParameterizedJob) job;
@@ -160,17 +224,8 @@ class OpenMergeRequestPushHookTriggerHandler implements PushHookTriggerHandler {
                 projectBuildDelay = abstractProject.getQuietPeriod();
             }
         }
-        retrieveScheduleJob(job).scheduleBuild2(projectBuildDelay, actions);
-    }
-
-    private ParameterizedJobMixIn retrieveScheduleJob(final Job<?, ?> job) {
-        // TODO 1.621+ use standard method
-        return new ParameterizedJobMixIn() {
-            @Override
-            protected Job asJob() {
-                return job;
-            }
-        };
+        projectBuildDelay = AdaptiveQuietPeriod.instance().getQuietPeriod(causeData, projectBuildDelay);
+        BuildCoalescer.instance().schedule(job, causeData, revisionParameter, projectBuildDelay, PriorityClass.OPEN_MERGE_REQUEST);
     }
 
     private URIish retrieveUrIish(PushHook hook) {
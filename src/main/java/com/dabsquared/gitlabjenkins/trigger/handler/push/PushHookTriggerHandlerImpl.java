@@ -6,6 +6,8 @@ import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.trigger.exception.NoRevisionToBuildException;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
 import com.dabsquared.gitlabjenkins.trigger.handler.AbstractWebHookTriggerHandler;
+import com.dabsquared.gitlabjenkins.trigger.handler.FoldableRevisionParameterAction;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
 import hudson.model.Job;
 import hudson.plugins.git.RevisionParameterAction;
 import org.eclipse.jgit.util.StringUtils;
@@ -24,11 +26,16 @@ class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook>
 
     @Override
     public void handle(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter) {
-        if (isNoRemoveBranchPush(hook)) {
+        if (isNoRemoveBranchPush(hook.getAfter())) {
             super.handle(job, hook, ciSkip, branchFilter);
         }
     }
 
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        return isNoRemoveBranchPush(summary.getAfter()) && super.accepts(summary, ciSkip, branchFilter);
+    }
+
     @Override
     protected boolean isCiSkip(PushHook hook) {
         List<Commit> commits = hook.getCommits();
@@ -83,7 +90,7 @@ class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook>
 
     @Override
     protected RevisionParameterAction createRevisionParameter(PushHook hook) throws NoRevisionToBuildException {
-        return new RevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
+        return new FoldableRevisionParameterAction(retrieveRevisionToBuild(hook), retrieveUrIish(hook));
     }
 
     @Override
@@ -127,7 +134,7 @@ class PushHookTriggerHandlerImpl extends AbstractWebHookTriggerHandler<PushHook>
         return hook.getBefore() != null && hook.getBefore().equals(NO_COMMIT);
     }
 
-    private boolean isNoRemoveBranchPush(PushHook hook) {
-        return hook.getAfter() != null && !hook.getAfter().equals(NO_COMMIT);
+    private boolean isNoRemoveBranchPush(String after) {
+        return after != null && !after.equals(NO_COMMIT);
     }
 }
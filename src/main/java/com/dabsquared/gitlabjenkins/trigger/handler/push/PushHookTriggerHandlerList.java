@@ -2,11 +2,18 @@ package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilter;
+import com.dabsquared.gitlabjenkins.trigger.handler.RefTipTracker;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
+import com.dabsquared.gitlabjenkins.webhook.queue.JobLaneExecutor;
 import hudson.model.Job;
 
 import java.util.List;
 
 /**
+ * Runs the push handlers of a job in order on the thread that dispatches the hook to the job, e.g. the job's lane of the
+ * {@link JobLaneExecutor}. The open merge request handler hands its GitLab API calls off to the
+ * {@link OpenMergeRequestFanOut} itself.
+ *
  * @author Robin Müller
  */
 class PushHookTriggerHandlerList implements PushHookTriggerHandler {
@@ -19,8 +26,21 @@ class PushHookTriggerHandlerList implements PushHookTriggerHandler {
 
     @Override
     public void handle(Job<?, ?> job, PushHook hook, boolean ciSkip, BranchFilter branchFilter) {
+        if (RefTipTracker.instance().isStale(job, hook)) {
+            return;
+        }
         for (PushHookTriggerHandler handler : handlers) {
             handler.handle(job, hook, ciSkip, branchFilter);
         }
     }
+
+    @Override
+    public boolean accepts(WebHookSummary summary, boolean ciSkip, BranchFilter branchFilter) {
+        for (PushHookTriggerHandler handler : handlers) {
+            if (handler.accepts(summary, ciSkip, branchFilter)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,65 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import hudson.model.Queue;
+
+/**
+ * The priorities of the builds triggered by web hooks. Builds with a lower priority are taken from the queue first,
+ * builds not triggered by a web hook have the priority {@value #DEFAULT_PRIORITY}.
+ *
+ * The builds rebuilding the open merge requests of a GitLab project can additionally be limited to a number of
+ * concurrently running builds per project, so that they can't take all executors.
+ */
+public final class BuildPriorities {
+
+    public static final int DEFAULT_PRIORITY = 3;
+
+    private static final BuildPriorities INSTANCE = new BuildPriorities();
+
+    private volatile boolean enabled;
+    private volatile int[] priorities;
+    private volatile int maxOpenMergeRequestBuildsPerProject;
+
+    private BuildPriorities() {
+        priorities = new int[PriorityClass.values().length];
+        for (PriorityClass priorityClass : PriorityClass.values()) {
+            priorities[priorityClass.ordinal()] = priorityClass.getDefaultPriority();
+        }
+    }
+
+    public static BuildPriorities instance() {
+        return INSTANCE;
+    }
+
+    public void configure(boolean enabled, int mergeRequestPriority, int notePriority, int pushPriority, int openMergeRequestPriority,
+                          int maxOpenMergeRequestBuildsPerProject) {
+        int[] priorities = new int[PriorityClass.values().length];
+        priorities[PriorityClass.MERGE_REQUEST.ordinal()] = mergeRequestPriority;
+        priorities[PriorityClass.NOTE.ordinal()] = notePriority;
+        priorities[PriorityClass.PUSH.ordinal()] = pushPriority;
+        priorities[PriorityClass.OPEN_MERGE_REQUEST.ordinal()] = openMergeRequestPriority;
+        this.priorities = priorities;
+        this.maxOpenMergeRequestBuildsPerProject = Math.max(0, maxOpenMergeRequestBuildsPerProject);
+        this.enabled = enabled;
+        GitLabQueueSorter.update(enabled);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPriority(PriorityClass priorityClass) {
+        return priorities[priorityClass.ordinal()];
+    }
+
+    public int getPriority(Queue.Item item) {
+        BuildPriorityAction action = item.getAction(BuildPriorityAction.class);
+        return action == null ? DEFAULT_PRIORITY : getPriority(action.getPriorityClass());
+    }
+
+    /**
+     * @return the number of open merge request builds allowed to run at the same time per GitLab project, 0 if unlimited
+     */
+    public int getMaxOpenMergeRequestBuildsPerProject() {
+        return maxOpenMergeRequestBuildsPerProject;
+    }
+}
@@ -0,0 +1,25 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * Marks a queued build with the class of the web hook that triggered it and the GitLab project the hook came from.
+ */
+public class BuildPriorityAction extends InvisibleAction {
+
+    private final PriorityClass priorityClass;
+    private final Integer projectId;
+
+    public BuildPriorityAction(PriorityClass priorityClass, Integer projectId) {
+        this.priorityClass = priorityClass;
+        this.projectId = projectId;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+}
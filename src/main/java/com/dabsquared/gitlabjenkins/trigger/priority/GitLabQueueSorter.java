@@ -0,0 +1,81 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import hudson.ExtensionList;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Queue;
+import hudson.model.queue.QueueSorter;
+import jenkins.model.Jenkins;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Orders the buildable items of the queue by the {@link BuildPriorities} of the web hooks that triggered them. Items of
+ * the same priority keep the order of the sorter this one has been installed in front of.
+ *
+ * Jenkins only uses a single sorter, so this one is no extension. It is installed in front of the sorter of the queue
+ * while builds are prioritized and the replaced sorter is restored once they aren't anymore.
+ */
+public class GitLabQueueSorter extends QueueSorter {
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabQueueSorter.class.getName());
+
+    private static boolean started;
+
+    private final QueueSorter delegate;
+
+    GitLabQueueSorter(QueueSorter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void sortBuildableItems(List<Queue.BuildableItem> buildables) {
+        if (delegate != null) {
+            delegate.sortBuildableItems(buildables);
+        }
+        final BuildPriorities priorities = BuildPriorities.instance();
+        if (priorities.isEnabled()) {
+            Collections.sort(buildables, new Comparator<Queue.BuildableItem>() {
+                public int compare(Queue.BuildableItem o1, Queue.BuildableItem o2) {
+                    return Integer.compare(priorities.getPriority(o1), priorities.getPriority(o2));
+                }
+            });
+        }
+    }
+
+    /**
+     * Installs or removes the sorter. Does nothing before the jobs are loaded, as Jenkins installs the first
+     * {@link QueueSorter} extension only if the queue has no sorter yet.
+     */
+    static synchronized void update(boolean enabled) {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (!started || jenkins == null) {
+            return;
+        }
+        Queue queue = jenkins.getQueue();
+        QueueSorter current = queue.getSorter();
+        if (enabled && !(current instanceof GitLabQueueSorter)) {
+            if (current == null) {
+                // the default sorter may not have been installed yet
+                ExtensionList<QueueSorter> sorters = QueueSorter.all();
+                current = sorters.isEmpty() ? null : sorters.get(0);
+            }
+            LOGGER.log(Level.FINE, "Installing build priorities in front of {0}", current);
+            queue.setSorter(new GitLabQueueSorter(current));
+        } else if (!enabled && current instanceof GitLabQueueSorter) {
+            queue.setSorter(((GitLabQueueSorter) current).delegate);
+        }
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void install() {
+        synchronized (GitLabQueueSorter.class) {
+            started = true;
+        }
+        update(BuildPriorities.instance().isEnabled());
+    }
+}
@@ -0,0 +1,51 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import hudson.Extension;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+
+/**
+ * Keeps the builds of the open merge requests of a GitLab project in the queue while the project already has
+ * {@link BuildPriorities#getMaxOpenMergeRequestBuildsPerProject()} of them running, as counted by the
+ * {@link OpenMergeRequestBuildCounter}.
+ */
+@Extension
+public class GitLabQueueTaskDispatcher extends QueueTaskDispatcher {
+
+    @Override
+    public CauseOfBlockage canRun(Queue.Item item) {
+        BuildPriorities priorities = BuildPriorities.instance();
+        int max = priorities.getMaxOpenMergeRequestBuildsPerProject();
+        if (!priorities.isEnabled() || max == 0) {
+            return null;
+        }
+        BuildPriorityAction action = item.getAction(BuildPriorityAction.class);
+        if (!isOpenMergeRequestBuild(action) || action.getProjectId() == null) {
+            return null;
+        }
+        if (OpenMergeRequestBuildCounter.instance().count(action.getProjectId()) >= max) {
+            return new FairShareExceeded(action.getProjectId(), max);
+        }
+        return null;
+    }
+
+    private boolean isOpenMergeRequestBuild(BuildPriorityAction action) {
+        return action != null && action.getPriorityClass() == PriorityClass.OPEN_MERGE_REQUEST;
+    }
+
+    private static class FairShareExceeded extends CauseOfBlockage {
+        private final Integer projectId;
+        private final int max;
+
+        private FairShareExceeded(Integer projectId, int max) {
+            this.projectId = projectId;
+            this.max = max;
+        }
+
+        @Override
+        public String getShortDescription() {
+            return "GitLab project " + projectId + " already has " + max + " open merge request builds running";
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import hudson.Extension;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.queue.QueueListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the open merge request builds of each GitLab project that have been handed to an executor, so the
+ * {@link GitLabQueueTaskDispatcher} doesn't have to look at every executor for every queued item.
+ *
+ * An item is counted as pending once it leaves the buildable items of the queue, unless it goes back to waiting or
+ * blocked or is cancelled. Its build is counted as running from its start until it is completed.
+ */
+public final class OpenMergeRequestBuildCounter {
+
+    private static final OpenMergeRequestBuildCounter INSTANCE = new OpenMergeRequestBuildCounter();
+
+    private final Map<Long, Integer> pendingItems = new HashMap<>();
+    private final Multiset<Integer> pendingBuilds = HashMultiset.create();
+    private final Multiset<Integer> runningBuilds = HashMultiset.create();
+
+    private OpenMergeRequestBuildCounter() { }
+
+    public static OpenMergeRequestBuildCounter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of pending and running open merge request builds of the GitLab project
+     */
+    public synchronized int count(Integer projectId) {
+        return pendingBuilds.count(projectId) + runningBuilds.count(projectId);
+    }
+
+    synchronized void pending(long queueId, Integer projectId) {
+        if (pendingItems.put(queueId, projectId) == null) {
+            pendingBuilds.add(projectId);
+        }
+    }
+
+    synchronized void notPending(long queueId) {
+        Integer projectId = pendingItems.remove(queueId);
+        if (projectId != null) {
+            pendingBuilds.remove(projectId);
+        }
+    }
+
+    synchronized void started(long queueId, Integer projectId) {
+        notPending(queueId);
+        runningBuilds.add(projectId);
+    }
+
+    synchronized void completed(Integer projectId) {
+        runningBuilds.remove(projectId);
+    }
+
+    private static Integer getProjectId(BuildPriorityAction action) {
+        return action != null && action.getPriorityClass() == PriorityClass.OPEN_MERGE_REQUEST ? action.getProjectId() : null;
+    }
+
+    @Extension
+    public static class QueueListenerImpl extends QueueListener {
+        @Override
+        public void onLeaveBuildable(Queue.BuildableItem item) {
+            Integer projectId = getProjectId(item.getAction(BuildPriorityAction.class));
+            if (projectId != null) {
+                INSTANCE.pending(item.getId(), projectId);
+            }
+        }
+
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem item) {
+            INSTANCE.notPending(item.getId());
+        }
+
+        @Override
+        public void onEnterBlocked(Queue.BlockedItem item) {
+            INSTANCE.notPending(item.getId());
+        }
+
+        @Override
+        public void onEnterBuildable(Queue.BuildableItem item) {
+            INSTANCE.notPending(item.getId());
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem item) {
+            if (item.isCancelled()) {
+                INSTANCE.notPending(item.getId());
+            }
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            Integer projectId = getProjectId(run.getAction(BuildPriorityAction.class));
+            if (projectId != null) {
+                INSTANCE.started(run.getQueueId(), projectId);
+            }
+        }
+
+        @Override
+        public void onCompleted(Run<?, ?> run, TaskListener listener) {
+            Integer projectId = getProjectId(run.getAction(BuildPriorityAction.class));
+            if (projectId != null) {
+                INSTANCE.completed(projectId);
+            }
+        }
+    }
+}
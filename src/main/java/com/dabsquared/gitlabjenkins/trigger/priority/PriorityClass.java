@@ -0,0 +1,34 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+
+/**
+ * The kinds of builds triggered by web hooks, which can be given different priorities in the build queue.
+ */
+public enum PriorityClass {
+    MERGE_REQUEST(1), NOTE(1), PUSH(3), OPEN_MERGE_REQUEST(5);
+
+    private final int defaultPriority;
+
+    PriorityClass(int defaultPriority) {
+        this.defaultPriority = defaultPriority;
+    }
+
+    /**
+     * @return the priority of the class if it isn't configured, lower priorities are built first
+     */
+    public int getDefaultPriority() {
+        return defaultPriority;
+    }
+
+    public static PriorityClass of(CauseData.ActionType actionType) {
+        switch (actionType) {
+            case MERGE:
+                return MERGE_REQUEST;
+            case NOTE:
+                return NOTE;
+            default:
+                return PUSH;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.dabsquared.gitlabjenkins.util;
 
+import com.dabsquared.gitlabjenkins.index.BranchBuildIndex;
+import com.dabsquared.gitlabjenkins.index.Sha1BuildIndex;
 import hudson.model.Job;
 import hudson.model.Run;
-import hudson.plugins.git.Branch;
 import hudson.plugins.git.util.BuildData;
 import hudson.plugins.git.util.MergeRecord;
 
@@ -11,22 +12,23 @@ import hudson.plugins.git.util.MergeRecord;
  */
 public class BuildUtil {
     public static Run<?, ?> getBuildByBranch(Job<?, ?> project, String branchName) {
-        for (Run<?, ?> build : project.getBuilds()) {
-            BuildData data = build.getAction(BuildData.class);
-            MergeRecord merge = build.getAction(MergeRecord.class);
-            if (hasLastBuild(data) && isNoMergeBuild(data, merge)) {
-                for (Branch branch : data.lastBuild.getRevision().getBranches()) {
-                    if (branch.getName().endsWith("/" + branchName)) {
-                        return build;
-                    }
-                }
-            }
+        Integer number = BranchBuildIndex.instance().findBuildNumber(project, branchName);
+        Run<?, ?> build = number == null ? null : project.getBuildByNumber(number);
+        if (number != null && build == null) {
+            // the build has been removed without the index noticing
+            BranchBuildIndex.instance().invalidate(project);
+            number = BranchBuildIndex.instance().findBuildNumber(project, branchName);
+            build = number == null ? null : project.getBuildByNumber(number);
         }
-        return null;
+        return build;
     }
 
     public static Run<?, ?> getBuildBySHA1WithoutMergeBuilds(Job<?, ?> project, String sha1) {
-        for (Run<?, ?> build : project.getBuilds()) {
+        for (Integer number : Sha1BuildIndex.instance().findBuildNumbers(project, sha1)) {
+            Run<?, ?> build = project.getBuildByNumber(number);
+            if (build == null) {
+                continue;
+            }
             BuildData data = build.getAction(BuildData.class);
             MergeRecord merge = build.getAction(MergeRecord.class);
             if (hasLastBuild(data) && isNoMergeBuild(data, merge) && data.lastBuild.isFor(sha1)) {
@@ -37,7 +39,11 @@ public class BuildUtil {
     }
 
     public static Run<?, ?> getBuildBySHA1IncludingMergeBuilds(Job<?, ?> project, String sha1) {
-        for (Run<?, ?> build : project.getBuilds()) {
+        for (Integer number : Sha1BuildIndex.instance().findBuildNumbers(project, sha1)) {
+            Run<?, ?> build = project.getBuildByNumber(number);
+            if (build == null) {
+                continue;
+            }
             BuildData data = build.getAction(BuildData.class);
             if (data != null
                 && data.lastBuild != null
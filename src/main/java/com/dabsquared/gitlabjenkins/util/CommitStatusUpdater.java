@@ -57,6 +57,22 @@ public class CommitStatusUpdater {
         }
     }
 
+    /**
+     * Publishes the state of a build as the status of a commit on another ref than the one the build was triggered for.
+     */
+    public static void updateCommitStatus(Run<?, ?> build, BuildState state, String name, String gitlabProjectId, String commitHash, String ref) {
+        GitLabApi client = getClient(build);
+        if (client == null) {
+            LOGGER.log(Level.WARNING, "No GitLab connection configured");
+            return;
+        }
+        try {
+            client.changeBuildStatus(gitlabProjectId, commitHash, state, ref, name, getBuildUrl(build), null);
+        } catch (WebApplicationException | ProcessingException e) {
+            LOGGER.log(Level.SEVERE, String.format("Failed to update Gitlab commit status for project '%s'", gitlabProjectId), e);
+        }
+    }
+
     private static void println(TaskListener listener, String message) {
         if (listener == null) {
             LOGGER.log(Level.FINE, "failed to print message {0} due to null TaskListener", message);
@@ -1,17 +1,41 @@
 package com.dabsquared.gitlabjenkins.webhook;
 
 import com.dabsquared.gitlabjenkins.connection.GitLabConnectionConfig;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.WebHook;
 import com.dabsquared.gitlabjenkins.util.ACLUtil;
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.batch.BatchWebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.build.BuildWebHookAction;
 import com.dabsquared.gitlabjenkins.webhook.build.MergeRequestBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.build.NoteBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.build.PushBuildAction;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookPreFilter;
+import com.dabsquared.gitlabjenkins.webhook.journal.JournaledWebHook;
+import com.dabsquared.gitlabjenkins.webhook.journal.JournaledWebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.dabsquared.gitlabjenkins.webhook.limit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.queue.QueuedWebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookEventStatusAction;
+import com.dabsquared.gitlabjenkins.webhook.route.GitLabJobIndex;
+import com.dabsquared.gitlabjenkins.webhook.route.RoutedWebHookAction;
 import com.dabsquared.gitlabjenkins.webhook.status.BranchBuildPageRedirectAction;
 import com.dabsquared.gitlabjenkins.webhook.status.BranchStatusPngAction;
+import com.dabsquared.gitlabjenkins.webhook.status.BranchStatusSvgAction;
+import com.dabsquared.gitlabjenkins.webhook.status.BuildStatusPollAction;
+import com.dabsquared.gitlabjenkins.webhook.status.BuildStatusStreamAction;
+import com.dabsquared.gitlabjenkins.webhook.status.BulkStatusJsonAction;
 import com.dabsquared.gitlabjenkins.webhook.status.CommitBuildPageRedirectAction;
 import com.dabsquared.gitlabjenkins.webhook.status.CommitStatusPngAction;
+import com.dabsquared.gitlabjenkins.webhook.status.CommitStatusSvgAction;
 import com.dabsquared.gitlabjenkins.webhook.status.StatusJsonAction;
+import com.dabsquared.gitlabjenkins.webhook.status.StatusMatrixAction;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Job;
@@ -25,9 +49,17 @@ import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -44,20 +76,165 @@ public class ActionResolver {
     private static final Logger LOGGER = Logger.getLogger(ActionResolver.class.getName());
     private static final Pattern COMMIT_STATUS_PATTERN =
             Pattern.compile("^(refs/[^/]+/)?(commits|builds)/(?<sha1>[0-9a-fA-F]+)(?<statusJson>/status.json)?$");
+    private static final Pattern BULK_STATUS_PATTERN = Pattern.compile("^(commits|builds)/status.json$");
+    private static final Splitter PATH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+    private static final Joiner PATH_JOINER = Joiner.on('/');
+    private static final Pattern WEB_HOOK_EVENT_PATTERN = Pattern.compile("^events/(?<eventId>[0-9a-fA-F-]+)$");
 
     public WebHookAction resolve(final String projectName, StaplerRequest request) {
-        Iterator<String> restOfPathParts = Splitter.on('/').omitEmptyStrings().split(request.getRestOfPath()).iterator();
+        List<String> pathParts = PATH_SPLITTER.splitToList(request.getRestOfPath());
+        ItemPathCache cache = ItemPathCache.instance();
+        StringBuilder path = new StringBuilder(projectName);
+        for (int i = 0; i <= pathParts.size(); i++) {
+            if (i > 0) {
+                path.append('/').append(pathParts.get(i - 1));
+            }
+            Item project = cache.get(path.toString());
+            if (project != null) {
+                return resolveAction(project, PATH_JOINER.join(pathParts.subList(i, pathParts.size())), request);
+            }
+        }
+        Iterator<String> restOfPathParts = pathParts.iterator();
         Item project = resolveProject(projectName, restOfPathParts);
         if (project == null) {
             throw HttpResponses.notFound();
         }
-        return resolveAction(project, Joiner.on('/').join(restOfPathParts), request);
+        List<String> restOfPath = Lists.newArrayList(restOfPathParts);
+        List<String> projectPathParts = pathParts.subList(0, pathParts.size() - restOfPath.size());
+        cache.put(projectPathParts.isEmpty() ? projectName : projectName + '/' + PATH_JOINER.join(projectPathParts), project);
+        return resolveAction(project, PATH_JOINER.join(restOfPath), request);
+    }
+
+    /**
+     * Resolves the action for the hooks sent to the web hook root, which are dispatched to all the jobs that build the
+     * repository of the hook.
+     */
+    public WebHookAction resolveRouted(StaplerRequest request) {
+        String method = request.getMethod();
+        if (method.equals("GET") && request.hasParameter("event")) {
+            return new WebHookEventStatusAction(request.getParameter("event"));
+        } else if (method.equals("GET") && request.hasParameter("stats")) {
+            // the counters expose the load and the jobs of the whole instance, whether the endpoint is authenticated or not
+            checkJenkinsPermission(Jenkins.ADMINISTER);
+            return new WebHookStatsAction();
+        } else if (method.equals("GET") && request.hasParameter("matrix")) {
+            return onGetStatusMatrix(request);
+        } else if (!method.equals("POST")) {
+            LOGGER.log(Level.FINE, "Unsupported HTTP method: {0}", method);
+            return new NoopAction();
+        }
+        checkPermission(Item.BUILD);
+        WebHookRateLimiter.instance().acquire(null);
+        if (request.hasParameter("batch")) {
+            return createBatchAction(getRequestReader(request));
+        }
+        final String eventHeader = request.getHeader("X-Gitlab-Event");
+        if (eventHeader == null || !isSupportedEvent(eventHeader)) {
+            LOGGER.log(Level.FINE, "Missing or unsupported X-Gitlab-Event header: {0}", eventHeader);
+            return new NoopAction();
+        }
+        final String deliveryId = getDeliveryId(request);
+        final byte[] requestBody = getRequestBody(request);
+        final Charset charset = getCharset(request);
+        final WebHookJournal journal = WebHookJournal.instance();
+        if (getConnectionConfig().isAsyncWebHookProcessing()) {
+            final long entryId = journal.append(eventHeader, null, deliveryId, charset, requestBody);
+            String statusUrl = request.getRequestURL().toString() + "?event=";
+            return new JournaledWebHookAction(entryId, new QueuedWebHookAction(eventHeader, null, statusUrl, new Runnable() {
+                public void run() {
+                    try {
+                        if (WebHookPreFilter.instance().acceptsRouted(eventHeader, requestBody, charset)) {
+                            createRoutedAction(eventHeader, readHook(eventHeader, requestBody, charset), deliveryId).process();
+                        }
+                    } finally {
+                        journal.markDone(entryId);
+                    }
+                }
+            }), false);
+        }
+        if (!WebHookPreFilter.instance().acceptsRouted(eventHeader, requestBody, charset)) {
+            return new RoutedWebHookAction(Collections.<String, BuildWebHookAction>emptyMap());
+        }
+        WebHook hook = readHook(eventHeader, requestBody, charset);
+        if (journal.isEnabled()) {
+            long entryId = journal.append(eventHeader, null, deliveryId, charset, requestBody);
+            return new JournaledWebHookAction(entryId, createRoutedAction(eventHeader, hook, deliveryId), true);
+        }
+        return createRoutedAction(eventHeader, hook, deliveryId);
+    }
+
+    private WebHookAction onGetStatusMatrix(StaplerRequest request) {
+        checkPermission(Item.READ);
+        String project = request.getParameter("project");
+        if (project == null || project.trim().isEmpty()) {
+            throw HttpResponses.errorWithoutStack(400, "A GitLab project id or path is required");
+        }
+        return new StatusMatrixAction(GitLabJobIndex.instance().findJobs(project), request.getParameter("sha1"), request.getParameter("ref"));
+    }
+
+    private RoutedWebHookAction createRoutedAction(String eventHeader, WebHook hook, String deliveryId) {
+        return new RoutedWebHookAction(createRoutedBuildActions(eventHeader, hook, deliveryId));
+    }
+
+    private Map<String, BuildWebHookAction> createRoutedBuildActions(final String eventHeader, final WebHook hook, final String deliveryId) {
+        return ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Map<String, BuildWebHookAction>>() {
+            public Map<String, BuildWebHookAction> invoke() {
+                Map<String, BuildWebHookAction> actions = new LinkedHashMap<>();
+                for (String fullName : GitLabJobIndex.instance().findJobs(hook)) {
+                    Job<?, ?> job = Jenkins.getInstance().getItemByFullName(fullName, Job.class);
+                    if (job != null) {
+                        actions.put(fullName, createBuildAction(job, eventHeader, hook).withDeliveryId(deliveryId));
+                    }
+                }
+                LOGGER.log(Level.FINE, "Routing {0} to {1}", toArray(eventHeader, actions.keySet()));
+                return actions;
+            }
+        });
+    }
+
+    private BatchWebHookAction createBatchAction(Reader requestBody) {
+        return new BatchWebHookAction(requestBody, new BatchWebHookAction.ActionFactory() {
+            public Map<String, Runnable> createActions(String eventType, final String projectName, String deliveryId, JsonNode payload) {
+                if (!isSupportedEvent(eventType)) {
+                    throw new IllegalArgumentException("Unsupported event: " + eventType);
+                }
+                WebHook hook = JsonUtil.read(payload, getHookType(eventType));
+                Map<String, BuildWebHookAction> buildActions;
+                if (projectName == null) {
+                    buildActions = createRoutedBuildActions(eventType, hook, deliveryId);
+                } else {
+                    Item project = ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Item>() {
+                        public Item invoke() {
+                            return Jenkins.getInstance().getItemByFullName(projectName);
+                        }
+                    });
+                    if (project == null) {
+                        throw new IllegalArgumentException("No project found: " + projectName);
+                    }
+                    buildActions = Collections.singletonMap(projectName, createBuildAction(project, eventType, hook).withDeliveryId(deliveryId));
+                }
+                Map<String, Runnable> actions = new LinkedHashMap<>();
+                for (Map.Entry<String, BuildWebHookAction> entry : buildActions.entrySet()) {
+                    final BuildWebHookAction buildAction = entry.getValue();
+                    actions.put(entry.getKey(), new Runnable() {
+                        public void run() {
+                            buildAction.process();
+                        }
+                    });
+                }
+                return actions;
+            }
+        });
     }
 
     private WebHookAction resolveAction(Item project, String restOfPath, StaplerRequest request) {
         String method = request.getMethod();
         if (method.equals("POST")) {
             checkPermission(Item.BUILD);
+            WebHookRateLimiter.instance().acquire(project.getFullName());
+            if (project instanceof Job<?, ?> && BULK_STATUS_PATTERN.matcher(restOfPath).matches()) {
+                return BulkStatusJsonAction.fromQuery((Job<?, ?>) project, getRequestReader(request));
+            }
             return onPost(project, request);
         } else if (method.equals("GET")) {
             if (project instanceof Job<?, ?>) {
@@ -73,12 +250,23 @@ public class ActionResolver {
 
     private WebHookAction onGet(Job<?, ?> project, String restOfPath, StaplerRequest request) {
         Matcher commitMatcher = COMMIT_STATUS_PATTERN.matcher(restOfPath);
+        Matcher eventMatcher = WEB_HOOK_EVENT_PATTERN.matcher(restOfPath);
         if (restOfPath.isEmpty() && request.hasParameter("ref")) {
             return new BranchBuildPageRedirectAction(project, request.getParameter("ref"));
         } else if (restOfPath.endsWith("status.png")) {
             return onGetStatusPng(project, request);
+        } else if (restOfPath.endsWith("status.svg")) {
+            return onGetStatusSvg(project, request);
+        } else if (restOfPath.equals("status/stream")) {
+            return new BuildStatusStreamAction(project, request.getParameter("sha1"), getToken(request, "Last-Event-ID"));
+        } else if (restOfPath.equals("status/poll")) {
+            return new BuildStatusPollAction(project, request.getParameter("sha1"), getToken(request, "If-Changed-Since"));
+        } else if (BULK_STATUS_PATTERN.matcher(restOfPath).matches()) {
+            return new BulkStatusJsonAction(project, getParameterValues(request, "sha1"), getParameterValues(request, "ref"));
         } else if (commitMatcher.matches()) {
             return onGetCommitStatus(project, commitMatcher.group("sha1"), commitMatcher.group("statusJson"));
+        } else if (eventMatcher.matches()) {
+            return new WebHookEventStatusAction(eventMatcher.group("eventId"));
         }
         LOGGER.log(Level.FINE, "Unknown GET request: {0}", restOfPath);
         return new NoopAction();
@@ -92,6 +280,15 @@ public class ActionResolver {
         }
     }
 
+    private String getToken(StaplerRequest request, String header) {
+        return request.getHeader(header) == null ? request.getParameter("since") : request.getHeader(header);
+    }
+
+    private List<String> getParameterValues(StaplerRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        return values == null ? Collections.<String>emptyList() : Arrays.asList(values);
+    }
+
     private WebHookAction onGetStatusPng(Job<?, ?> project, StaplerRequest request) {
         if (request.hasParameter("ref")) {
             return new BranchStatusPngAction(project, request.getParameter("ref"));
@@ -100,35 +297,165 @@ public class ActionResolver {
         }
     }
 
+    private WebHookAction onGetStatusSvg(Job<?, ?> project, StaplerRequest request) {
+        if (request.hasParameter("ref")) {
+            return new BranchStatusSvgAction(project, request.getParameter("ref"));
+        } else {
+            return new CommitStatusSvgAction(project, request.getParameter("sha1"));
+        }
+    }
+
     private WebHookAction onPost(Item project, StaplerRequest request) {
         String eventHeader = request.getHeader("X-Gitlab-Event");
         if (eventHeader == null) {
             LOGGER.log(Level.FINE, "Missing X-Gitlab-Event header");
             return new NoopAction();
         }
+        if (!isSupportedEvent(eventHeader)) {
+            LOGGER.log(Level.FINE, "Unsupported X-Gitlab-Event header: {0}", eventHeader);
+            return new NoopAction();
+        }
+        byte[] requestBody = getRequestBody(request);
+        Charset charset = getCharset(request);
+        if (getConnectionConfig().isAsyncWebHookProcessing()) {
+            return onPostAsync(project, eventHeader, request, requestBody, charset);
+        }
+        if (!WebHookPreFilter.instance().accepts(project, eventHeader, requestBody, charset)) {
+            return new NoopAction();
+        }
+        String deliveryId = getDeliveryId(request);
+        BuildWebHookAction action = createBuildAction(project, eventHeader, readHook(eventHeader, requestBody, charset));
+        WebHookJournal journal = WebHookJournal.instance();
+        if (journal.isEnabled()) {
+            long entryId = journal.append(eventHeader, project.getFullName(), deliveryId, charset, requestBody);
+            return new JournaledWebHookAction(entryId, action.withDeliveryId(deliveryId), true);
+        }
+        return action.withDeliveryId(deliveryId);
+    }
+
+    private WebHookAction onPostAsync(final Item project, final String eventHeader, StaplerRequest request,
+                                      final byte[] requestBody, final Charset charset) {
+        final String deliveryId = getDeliveryId(request);
+        final WebHookJournal journal = WebHookJournal.instance();
+        final long entryId = journal.append(eventHeader, project.getFullName(), deliveryId, charset, requestBody);
+        return new JournaledWebHookAction(entryId, new QueuedWebHookAction(eventHeader, project.getFullName(), getEventStatusUrl(request), new Runnable() {
+            public void run() {
+                try {
+                    if (WebHookPreFilter.instance().accepts(project, eventHeader, requestBody, charset)) {
+                        createBuildAction(project, eventHeader, readHook(eventHeader, requestBody, charset)).withDeliveryId(deliveryId).process();
+                    }
+                } finally {
+                    journal.markDone(entryId);
+                }
+            }
+        }), false);
+    }
+
+    /**
+     * Processes a web hook from the {@link WebHookJournal} that hasn't been processed before Jenkins went down.
+     */
+    public void replay(final JournaledWebHook webHook) {
+        String eventHeader = webHook.getEventType();
+        Reader requestBody = new InputStreamReader(new ByteArrayInputStream(webHook.getBody()), webHook.getCharset());
+        if (webHook.getProjectName() == null) {
+            createRoutedAction(eventHeader, readHook(eventHeader, requestBody), webHook.getDeliveryId()).process();
+            return;
+        }
+        Item project = ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Item>() {
+            public Item invoke() {
+                return Jenkins.getInstance().getItemByFullName(webHook.getProjectName());
+            }
+        });
+        if (project == null) {
+            LOGGER.log(Level.INFO, "Skipping replay of {0} for removed project {1}", toArray(eventHeader, webHook.getProjectName()));
+            return;
+        }
+        try {
+            createBuildAction(project, eventHeader, requestBody).withDeliveryId(webHook.getDeliveryId()).process();
+        } catch (org.kohsuke.stapler.HttpResponses.HttpResponseException e) {
+            // the build actions answer with an HTTP response once they are done
+        }
+    }
+
+    private BuildWebHookAction createBuildAction(Item project, String eventHeader, Reader requestBody) {
+        return createBuildAction(project, eventHeader, readHook(eventHeader, requestBody));
+    }
+
+    private BuildWebHookAction createBuildAction(Item project, String eventHeader, WebHook hook) {
+        switch (eventHeader) {
+            case "Merge Request Hook":
+                return new MergeRequestBuildAction(project, (MergeRequestHook) hook);
+            case "Push Hook":
+            case "Tag Push Hook":
+                return new PushBuildAction(project, (PushHook) hook);
+            case "Note Hook":
+                return new NoteBuildAction(project, (NoteHook) hook);
+            default:
+                throw new IllegalArgumentException("Unsupported X-Gitlab-Event header: " + eventHeader);
+        }
+    }
+
+    private WebHook readHook(String eventHeader, byte[] requestBody, Charset charset) {
+        return readHook(eventHeader, new InputStreamReader(new ByteArrayInputStream(requestBody), charset));
+    }
+
+    private WebHook readHook(String eventHeader, Reader requestBody) {
+        return JsonUtil.read(requestBody, getHookType(eventHeader));
+    }
+
+    private Class<? extends WebHook> getHookType(String eventHeader) {
         switch (eventHeader) {
             case "Merge Request Hook":
-                return new MergeRequestBuildAction(project, getRequestBody(request));
+                return MergeRequestHook.class;
             case "Push Hook":
             case "Tag Push Hook":
-                return new PushBuildAction(project, getRequestBody(request));
+                return PushHook.class;
             case "Note Hook":
-                    return new NoteBuildAction(project, getRequestBody(request));
+                return NoteHook.class;
             default:
-                LOGGER.log(Level.FINE, "Unsupported X-Gitlab-Event header: {0}", eventHeader);
-                return new NoopAction();
+                throw new IllegalArgumentException("Unsupported X-Gitlab-Event header: " + eventHeader);
         }
     }
 
-    private String getRequestBody(StaplerRequest request) {
-        String requestBody;
+    private boolean isSupportedEvent(String eventHeader) {
+        switch (eventHeader) {
+            case "Merge Request Hook":
+            case "Push Hook":
+            case "Tag Push Hook":
+            case "Note Hook":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private String getDeliveryId(StaplerRequest request) {
+        return request.getHeader("X-Gitlab-Event-UUID");
+    }
+
+    private String getEventStatusUrl(StaplerRequest request) {
+        String requestUrl = request.getRequestURL().toString();
+        return (requestUrl.endsWith("/") ? requestUrl : requestUrl + '/') + "events/";
+    }
+
+    private Reader getRequestReader(StaplerRequest request) {
+        try {
+            return new InputStreamReader(request.getInputStream(), getCharset(request));
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to read request body");
+        }
+    }
+
+    private byte[] getRequestBody(StaplerRequest request) {
         try {
-            Charset charset = request.getCharacterEncoding() == null ?  UTF_8 : Charset.forName(request.getCharacterEncoding());
-            requestBody = IOUtils.toString(request.getInputStream(), charset);
+            return IOUtils.toByteArray(request.getInputStream());
         } catch (IOException e) {
             throw HttpResponses.error(500, "Failed to read request body");
         }
-        return requestBody;
+    }
+
+    private Charset getCharset(StaplerRequest request) {
+        return request.getCharacterEncoding() == null ? UTF_8 : Charset.forName(request.getCharacterEncoding());
     }
 
     private Item resolveProject(final String projectName, final Iterator<String> restOfPathParts) {
@@ -144,22 +471,30 @@ public class ActionResolver {
                         return item;
                     }
                 }
-                LOGGER.log(Level.FINE, "No project found: {0}, {1}", toArray(projectName, Joiner.on('/').join(restOfPathParts)));
+                LOGGER.log(Level.FINE, "No project found: {0}, {1}", toArray(projectName, PATH_JOINER.join(restOfPathParts)));
                 return null;
             }
         });
     }
 
     private void checkPermission(Permission permission) {
-        if (((GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class)).isUseAuthenticatedEndpoint()) {
-            try {
-                Jenkins.getInstance().checkPermission(permission);
-            } catch (AccessDeniedException2 e) {
-                throw HttpResponses.errorWithoutStack(403, e.getMessage());
-            }
+        if (getConnectionConfig().isUseAuthenticatedEndpoint()) {
+            checkJenkinsPermission(permission);
         }
     }
 
+    private void checkJenkinsPermission(Permission permission) {
+        try {
+            Jenkins.getInstance().checkPermission(permission);
+        } catch (AccessDeniedException2 e) {
+            throw HttpResponses.errorWithoutStack(403, e.getMessage());
+        }
+    }
+
+    private GitLabConnectionConfig getConnectionConfig() {
+        return (GitLabConnectionConfig) Jenkins.getInstance().getDescriptor(GitLabConnectionConfig.class);
+    }
+
     static class NoopAction implements WebHookAction {
         public void execute(StaplerResponse response) {
         }
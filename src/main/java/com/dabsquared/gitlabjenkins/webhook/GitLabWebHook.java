@@ -44,6 +44,11 @@ public class GitLabWebHook implements UnprotectedRootAction {
         actionResolver.resolve(projectName, request).execute(response);
     }
 
+    public void doIndex(StaplerRequest request, StaplerResponse response) {
+        LOGGER.log(Level.INFO, "WebHook called with url: {0}", request.getRequestURIWithQueryString());
+        actionResolver.resolveRouted(request).execute(response);
+    }
+
     @Extension
     public static class GitlabWebHookCrumbExclusion extends CrumbExclusion {
         @Override
@@ -0,0 +1,56 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+
+/**
+ * Caches the items resolved from web hook URL paths, so that the status URLs polled by GitLab don't walk the item
+ * tree on every request. The cache is cleared whenever an item is deleted, renamed or moved.
+ */
+public final class ItemPathCache {
+
+    static final int MAX_SIZE = Integer.getInteger(ItemPathCache.class.getName() + ".maxSize", 10000);
+
+    private static final ItemPathCache INSTANCE = new ItemPathCache();
+
+    private final Cache<String, Item> items = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+    private ItemPathCache() { }
+
+    public static ItemPathCache instance() {
+        return INSTANCE;
+    }
+
+    Item get(String path) {
+        return items.getIfPresent(path);
+    }
+
+    void put(String path, Item item) {
+        items.put(path, item);
+    }
+
+    public void invalidateAll() {
+        items.invalidateAll();
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onLoaded() {
+            INSTANCE.invalidateAll();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.invalidateAll();
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.invalidateAll();
+        }
+    }
+}
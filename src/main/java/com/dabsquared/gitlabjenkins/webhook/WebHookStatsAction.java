@@ -0,0 +1,162 @@
+package com.dabsquared.gitlabjenkins.webhook;
+
+import com.dabsquared.gitlabjenkins.trigger.handler.AdaptiveQuietPeriod;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildAvoidance;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildCoalescer;
+import com.dabsquared.gitlabjenkins.trigger.handler.ObsoleteBuildAborter;
+import com.dabsquared.gitlabjenkins.trigger.handler.push.OpenMergeRequestFanOut;
+import com.dabsquared.gitlabjenkins.trigger.handler.RefTipTracker;
+import com.dabsquared.gitlabjenkins.webhook.build.WebHookDeliveryCache;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookPreFilter;
+import com.dabsquared.gitlabjenkins.webhook.limit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.queue.JobLaneExecutor;
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
+import com.dabsquared.gitlabjenkins.webhook.route.GitLabJobIndex;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Reports the counters of the web hook processing as JSON, e.g. to feed them into a monitoring system.
+ */
+class WebHookStatsAction implements WebHookAction {
+
+    public void execute(StaplerResponse response) {
+        try {
+            JSONObject object = new JSONObject();
+            object.put("queue", getQueueStats());
+            object.put("dispatcher", getDispatcherStats());
+            object.put("rateLimiter", getRateLimiterStats());
+            object.put("preFilter", getPreFilterStats());
+            object.put("deliveryCache", getDeliveryCacheStats());
+            object.put("coalescer", getCoalescerStats());
+            object.put("quietPeriod", getQuietPeriodStats());
+            object.put("openMergeRequests", getOpenMergeRequestStats());
+            object.put("jobIndex", getJobIndexStats());
+            writeBody(response, object);
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    private JSONObject getQueueStats() {
+        WebHookQueue queue = WebHookQueue.instance();
+        JSONObject object = new JSONObject();
+        object.put("depth", queue.getQueueDepth());
+        object.put("capacity", queue.getCapacity());
+        object.put("activeWorkers", queue.getActiveWorkers());
+        object.put("workerThreads", queue.getWorkerThreads());
+        object.put("accepted", queue.getAcceptedCount());
+        object.put("rejected", queue.getRejectedCount());
+        object.put("failed", queue.getFailedCount());
+        return object;
+    }
+
+    private JSONObject getDispatcherStats() {
+        JobLaneExecutor dispatcher = JobLaneExecutor.instance();
+        JSONObject object = new JSONObject();
+        object.put("threads", dispatcher.getThreads());
+        object.put("activeLanes", dispatcher.getActiveLaneCount());
+        object.put("queued", dispatcher.getQueuedCount());
+        object.put("laneDepth", dispatcher.getLaneDepth());
+        object.put("maxLaneDepth", dispatcher.getMaxLaneDepth());
+        object.put("submitted", dispatcher.getSubmittedCount());
+        object.put("completed", dispatcher.getCompletedCount());
+        return object;
+    }
+
+    private JSONObject getRateLimiterStats() {
+        WebHookRateLimiter rateLimiter = WebHookRateLimiter.instance();
+        JSONObject object = new JSONObject();
+        object.put("accepted", rateLimiter.getAcceptedCount());
+        object.put("rateLimited", rateLimiter.getRateLimitedCount());
+        object.put("shed", rateLimiter.getShedCount());
+        return object;
+    }
+
+    private JSONObject getPreFilterStats() {
+        WebHookPreFilter preFilter = WebHookPreFilter.instance();
+        JSONObject object = new JSONObject();
+        object.put("scanned", preFilter.getScannedCount());
+        object.put("rejected", preFilter.getRejectedCount());
+        return object;
+    }
+
+    private JSONObject getDeliveryCacheStats() {
+        WebHookDeliveryCache deliveryCache = WebHookDeliveryCache.instance();
+        JSONObject object = new JSONObject();
+        object.put("size", deliveryCache.getSize());
+        object.put("hits", deliveryCache.getHitCount());
+        object.put("misses", deliveryCache.getMissCount());
+        return object;
+    }
+
+    private JSONObject getCoalescerStats() {
+        BuildCoalescer coalescer = BuildCoalescer.instance();
+        JSONObject object = new JSONObject();
+        object.put("window", coalescer.getWindow());
+        object.put("pending", coalescer.getPendingCount());
+        object.put("scheduled", coalescer.getScheduledCount());
+        object.put("folded", coalescer.getFoldedCount());
+        object.put("queueFolded", coalescer.getQueueFoldedCount());
+        object.put("staleSuppressed", RefTipTracker.instance().getSuppressedCount());
+        object.put("obsoleteAborted", ObsoleteBuildAborter.instance().getAbortedCount());
+        object.put("avoided", BuildAvoidance.instance().getAvoidedCount());
+        return object;
+    }
+
+    private JSONObject getQuietPeriodStats() {
+        AdaptiveQuietPeriod quietPeriod = AdaptiveQuietPeriod.instance();
+        JSONObject object = new JSONObject();
+        object.put("enabled", quietPeriod.isEnabled());
+        object.put("min", quietPeriod.getMinQuietPeriod());
+        object.put("max", quietPeriod.getMaxQuietPeriod());
+        JSONArray refs = new JSONArray();
+        for (AdaptiveQuietPeriod.Estimate estimate : quietPeriod.getEstimates()) {
+            JSONObject ref = new JSONObject();
+            ref.put("ref", estimate.getRef());
+            ref.put("pushes", estimate.getPushes());
+            ref.put("meanInterval", estimate.getMeanInterval());
+            ref.put("quietPeriod", estimate.getQuietPeriod());
+            refs.add(ref);
+        }
+        object.put("refs", refs);
+        return object;
+    }
+
+    private JSONObject getOpenMergeRequestStats() {
+        OpenMergeRequestFanOut fanOut = OpenMergeRequestFanOut.instance();
+        JSONObject object = new JSONObject();
+        object.put("pendingWaves", fanOut.getPendingWaveCount());
+        object.put("runningWaves", fanOut.getRunningWaveCount());
+        object.put("submitted", fanOut.getSubmittedCount());
+        object.put("coalesced", fanOut.getCoalescedCount());
+        object.put("completed", fanOut.getCompletedCount());
+        object.put("failed", fanOut.getFailedCount());
+        object.put("mergeRequests", fanOut.getMergeRequestCount());
+        object.put("processed", fanOut.getProcessedCount());
+        object.put("failedMergeRequests", fanOut.getFailedMergeRequestCount());
+        object.put("triggered", fanOut.getTriggeredCount());
+        return object;
+    }
+
+    private JSONObject getJobIndexStats() {
+        GitLabJobIndex jobIndex = GitLabJobIndex.instance();
+        JSONObject object = new JSONObject();
+        object.put("jobs", jobIndex.getJobCount());
+        object.put("repositories", jobIndex.getRepositoryCount());
+        return object;
+    }
+
+    private void writeBody(StaplerResponse response, JSONObject body) throws IOException {
+        response.setContentType("application/json");
+        PrintWriter writer = response.getWriter();
+        writer.write(body.toString());
+        writer.flush();
+        writer.close();
+    }
+}
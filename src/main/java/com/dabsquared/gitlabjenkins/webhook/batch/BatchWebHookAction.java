@@ -0,0 +1,292 @@
+package com.dabsquared.gitlabjenkins.webhook.batch;
+
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.build.BuildWebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.limit.WebHookRateLimiter;
+import com.dabsquared.gitlabjenkins.webhook.queue.JobLaneExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.BufferedReader;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Processes a batch of web hooks posted as newline delimited JSON, e.g. to replay the web hooks missed during an
+ * outage. Every line is an object with the {@code event} (the value of the X-Gitlab-Event header), the
+ * {@code payload} and optionally the full name of the {@code project} and the {@code uuid} of the delivery:
+ *
+ * <pre>
+ * {"event": "Push Hook", "project": "folder/job", "payload": {...}}
+ * </pre>
+ *
+ * Web hooks without a project are routed to all the jobs that build their repository. The web hooks of a job are
+ * processed in the order of the lines, the web hooks of different jobs are processed in parallel on the lanes of the
+ * {@link JobLaneExecutor}. Every web hook of the batch counts against the rate limit of its job. A batch is cut off
+ * after {@link #MAX_LINES} lines or {@link #MAX_CHARS} characters, the response is then marked as {@code truncated} and
+ * the remaining lines have to be posted again.
+ */
+public class BatchWebHookAction implements WebHookAction {
+
+    static final int MAX_LINES = Integer.getInteger(BatchWebHookAction.class.getName() + ".maxLines", 10000);
+    static final int MAX_CHARS = Integer.getInteger(BatchWebHookAction.class.getName() + ".maxChars", 64 * 1024 * 1024);
+    static final int MAX_IN_FLIGHT = Integer.getInteger(BatchWebHookAction.class.getName() + ".maxInFlight", 100);
+
+    private static final Logger LOGGER = Logger.getLogger(BatchWebHookAction.class.getName());
+
+    private final Reader requestBody;
+    private final ActionFactory actionFactory;
+
+    public BatchWebHookAction(Reader requestBody, ActionFactory actionFactory) {
+        this.requestBody = requestBody;
+        this.actionFactory = actionFactory;
+    }
+
+    public void execute(StaplerResponse response) {
+        List<LineResult> results = new ArrayList<>();
+        Deque<Future<?>> pending = new ArrayDeque<>();
+        boolean truncated;
+        try {
+            truncated = readLines(results, pending);
+        } catch (IOException e) {
+            // the lines submitted so far are still processed on their lanes
+            throw HttpResponses.error(500, "Failed to read request body");
+        }
+        while (!pending.isEmpty()) {
+            await(pending.removeFirst());
+        }
+        try {
+            writeBody(response, results, truncated);
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    /**
+     * @return {@code true} if the batch has been cut off after {@link #MAX_LINES} lines or {@link #MAX_CHARS} characters
+     */
+    private boolean readLines(List<LineResult> results, Deque<Future<?>> pending) throws IOException {
+        BufferedReader reader = new BufferedReader(new LimitedReader(requestBody, MAX_CHARS));
+        int lineNumber = 0;
+        while (true) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (BatchTooLargeException e) {
+                LOGGER.log(Level.INFO, "Batch cut off after {0} characters", MAX_CHARS);
+                return true;
+            }
+            if (line == null) {
+                return false;
+            }
+            lineNumber++;
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            if (results.size() >= MAX_LINES) {
+                LOGGER.log(Level.INFO, "Batch cut off after {0} lines", MAX_LINES);
+                return true;
+            }
+            LineResult result = new LineResult(lineNumber);
+            results.add(result);
+            try {
+                JsonNode node = JsonUtil.readTree(line);
+                result.event = getText(node, "event");
+                if (result.event == null || !node.hasNonNull("payload")) {
+                    result.fail("event and payload are required");
+                    continue;
+                }
+                Map<String, Runnable> actions =
+                    actionFactory.createActions(result.event, getText(node, "project"), getText(node, "uuid"), node.get("payload"));
+                for (Map.Entry<String, Runnable> entry : actions.entrySet()) {
+                    submit(pending, result, entry.getKey(), entry.getValue());
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to read line " + lineNumber, e);
+                result.fail(e.getMessage());
+            }
+        }
+    }
+
+    private void submit(Deque<Future<?>> pending, LineResult result, String jobName, Runnable action) {
+        try {
+            WebHookRateLimiter.instance().acquire(jobName);
+        } catch (org.kohsuke.stapler.HttpResponses.HttpResponseException e) {
+            LOGGER.log(Level.FINE, "Rate limited line {0} for {1}", toArray(result.lineNumber, jobName));
+            result.fail("web hook rate limit exceeded");
+            return;
+        }
+        if (pending.size() >= MAX_IN_FLIGHT) {
+            await(pending.removeFirst());
+        }
+        pending.addLast(JobLaneExecutor.instance().submit(jobName, new LineAction(result, jobName, action)));
+    }
+
+    private void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            // the line actions record their failures themselves
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw HttpResponses.error(500, "Interrupted while processing batch");
+        }
+    }
+
+    private String getText(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+
+    private void writeBody(StaplerResponse response, List<LineResult> results, boolean truncated) throws IOException {
+        JSONArray lines = new JSONArray();
+        int failed = 0;
+        for (LineResult result : results) {
+            lines.add(result.toJson());
+            if (result.message != null) {
+                failed++;
+            }
+        }
+        JSONObject object = new JSONObject();
+        object.put("lines", lines);
+        object.put("processed", results.size() - failed);
+        object.put("failed", failed);
+        if (truncated) {
+            object.put("truncated", true);
+        }
+        response.setContentType("application/json");
+        PrintWriter writer = response.getWriter();
+        writer.write(object.toString());
+        writer.flush();
+        writer.close();
+    }
+
+    /**
+     * Creates the build actions for a line of the batch.
+     */
+    public interface ActionFactory {
+        /**
+         * @param projectName the full name of the project or {@code null} if the web hook has to be routed
+         * @return the processing of the web hook by the full name of the job, see {@link BuildWebHookAction#process()}
+         */
+        Map<String, Runnable> createActions(String eventType, String projectName, String deliveryId, JsonNode payload);
+    }
+
+    private static class LineAction implements Runnable {
+        private final LineResult result;
+        private final String jobName;
+        private final Runnable action;
+
+        private LineAction(LineResult result, String jobName, Runnable action) {
+            this.result = result;
+            this.jobName = jobName;
+            this.action = action;
+        }
+
+        public void run() {
+            try {
+                action.run();
+            } catch (org.kohsuke.stapler.HttpResponses.HttpResponseException e) {
+                // the build actions answer with an HTTP response once they are done
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to process line " + result.lineNumber + " for " + jobName, e);
+                result.fail(e.getMessage());
+                return;
+            }
+            result.addJob();
+        }
+    }
+
+    private static class LineResult {
+        private final int lineNumber;
+        private int jobs;
+        private String event;
+        private String message;
+
+        private LineResult(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        private synchronized void addJob() {
+            jobs++;
+        }
+
+        private synchronized void fail(String message) {
+            this.message = this.message == null ? message : this.message + "; " + message;
+        }
+
+        private synchronized JSONObject toJson() {
+            JSONObject object = new JSONObject();
+            object.put("line", lineNumber);
+            if (event != null) {
+                object.put("event", event);
+            }
+            object.put("status", message == null ? "ok" : "failed");
+            // only the count, the names of the jobs are not disclosed to the sender of the batch
+            object.put("jobs", jobs);
+            if (message != null) {
+                object.put("message", message);
+            }
+            return object;
+        }
+    }
+
+    /**
+     * Fails with a {@link BatchTooLargeException} once more than the given number of characters have been read, so a
+     * huge batch or a single line without a line break can't exhaust the memory.
+     */
+    private static class LimitedReader extends FilterReader {
+        private long remaining;
+
+        private LimitedReader(Reader in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                consume(1);
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                consume(count);
+            }
+            return count;
+        }
+
+        private void consume(int count) throws BatchTooLargeException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new BatchTooLargeException();
+            }
+        }
+    }
+
+    private static class BatchTooLargeException extends IOException {
+    }
+}
@@ -1,17 +1,65 @@
 package com.dabsquared.gitlabjenkins.webhook.build;
 
 import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import hudson.model.Item;
+import hudson.util.HttpResponses;
 import org.kohsuke.stapler.StaplerResponse;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
 /**
  * @author Xinran Xiao
  */
-abstract class BuildWebHookAction implements WebHookAction {
+public abstract class BuildWebHookAction implements WebHookAction {
+
+    private final static Logger LOGGER = Logger.getLogger(BuildWebHookAction.class.getName());
+
+    private String deliveryId;
+
     abstract void processForCompatibility();
     abstract void execute();
+    abstract Item getProject();
+
+    /**
+     * @return the key identifying the delivery of this hook if GitLab didn't send a delivery id,
+     *         {@code null} if the hook can't be identified
+     */
+    abstract String getDeliveryKey();
+
+    public BuildWebHookAction withDeliveryId(String deliveryId) {
+        this.deliveryId = deliveryId;
+        return this;
+    }
 
     public final void execute(StaplerResponse response) {
+        process();
+    }
+
+    /**
+     * Processes the hook without a response at hand, e.g. on a web hook queue worker thread.
+     */
+    public final void process() {
         processForCompatibility();
-        execute();
+        String projectName = getProject().getFullName();
+        String deliveryKey = deliveryId == null ? getDeliveryKey() : deliveryId;
+        if (deliveryKey == null) {
+            execute();
+            return;
+        }
+        if (!WebHookDeliveryCache.instance().register(projectName, deliveryKey)) {
+            LOGGER.log(Level.INFO, "Skipping duplicate delivery {0} for {1}", toArray(deliveryKey, projectName));
+            throw HttpResponses.ok();
+        }
+        try {
+            execute();
+        } catch (org.kohsuke.stapler.HttpResponses.HttpResponseException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            WebHookDeliveryCache.instance().unregister(projectName, deliveryKey);
+            throw e;
+        }
     }
 }
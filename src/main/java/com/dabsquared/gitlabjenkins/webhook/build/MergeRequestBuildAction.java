@@ -5,6 +5,7 @@ import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.google.common.base.Joiner;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
@@ -25,9 +26,29 @@ public class MergeRequestBuildAction extends BuildWebHookAction {
     private MergeRequestHook mergeRequestHook;
 
     public MergeRequestBuildAction(Item project, String json) {
-        LOGGER.log(Level.FINE, "MergeRequest: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, MergeRequestHook.class));
+    }
+
+    public MergeRequestBuildAction(Item project, MergeRequestHook mergeRequestHook) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "MergeRequest: {0}", toPrettyPrint(mergeRequestHook));
+        }
         this.project = project;
-        this.mergeRequestHook = JsonUtil.read(json, MergeRequestHook.class);
+        this.mergeRequestHook = mergeRequestHook;
+    }
+
+    Item getProject() {
+        return project;
+    }
+
+    String getDeliveryKey() {
+        MergeRequestObjectAttributes attributes = mergeRequestHook.getObjectAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return Joiner.on(':').useForNull("").join("merge_request", attributes.getTargetProjectId(), attributes.getIid(), attributes.getSourceBranch(),
+                                                  attributes.getLastCommit() == null ? null : attributes.getLastCommit().getId(),
+                                                  attributes.getAction(), attributes.getState());
     }
 
     void processForCompatibility() {
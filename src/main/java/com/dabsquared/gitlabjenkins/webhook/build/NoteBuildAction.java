@@ -2,13 +2,13 @@ package com.dabsquared.gitlabjenkins.webhook.build;
 
 import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteObjectAttributes;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
-import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.google.common.base.Joiner;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
 import hudson.util.HttpResponses;
-import org.kohsuke.stapler.StaplerResponse;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -18,19 +18,41 @@ import static com.dabsquared.gitlabjenkins.util.JsonUtil.toPrettyPrint;
 /**
  * @author Nikolay Ustinov
  */
-public class NoteBuildAction implements WebHookAction {
+public class NoteBuildAction extends BuildWebHookAction {
 
     private final static Logger LOGGER = Logger.getLogger(NoteBuildAction.class.getName());
     private Item project;
     private NoteHook noteHook;
 
     public NoteBuildAction(Item project, String json) {
-        LOGGER.log(Level.FINE, "Note: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, NoteHook.class));
+    }
+
+    public NoteBuildAction(Item project, NoteHook noteHook) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Note: {0}", toPrettyPrint(noteHook));
+        }
         this.project = project;
-        this.noteHook = JsonUtil.read(json, NoteHook.class);
+        this.noteHook = noteHook;
+    }
+
+    Item getProject() {
+        return project;
+    }
+
+    String getDeliveryKey() {
+        NoteObjectAttributes attributes = noteHook.getObjectAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return Joiner.on(':').useForNull("").join("note", attributes.getProjectId(), attributes.getId());
+    }
+
+    void processForCompatibility() {
+        // nothing to do
     }
 
-    public void execute(StaplerResponse response) {
+    public void execute() {
         if (!(project instanceof Job<?, ?>)) {
             throw HttpResponses.errorWithoutStack(409, "Note Hook is not supported for this project");
         }
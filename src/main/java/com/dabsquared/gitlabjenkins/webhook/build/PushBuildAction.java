@@ -4,6 +4,7 @@ import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
 import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import com.google.common.base.Joiner;
 import hudson.model.Item;
 import hudson.model.Job;
 import hudson.security.ACL;
@@ -34,9 +35,23 @@ public class PushBuildAction extends BuildWebHookAction {
     private PushHook pushHook;
 
     public PushBuildAction(Item project, String json) {
-        LOGGER.log(Level.FINE, "Push: {0}", toPrettyPrint(json));
+        this(project, JsonUtil.read(json, PushHook.class));
+    }
+
+    public PushBuildAction(Item project, PushHook pushHook) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Push: {0}", toPrettyPrint(pushHook));
+        }
         this.project = project;
-        this.pushHook = JsonUtil.read(json, PushHook.class);
+        this.pushHook = pushHook;
+    }
+
+    Item getProject() {
+        return project;
+    }
+
+    String getDeliveryKey() {
+        return Joiner.on(':').useForNull("").join("push", pushHook.getProjectId(), pushHook.getRef(), pushHook.getBefore(), pushHook.getAfter());
     }
 
     void processForCompatibility() {
@@ -0,0 +1,86 @@
+package com.dabsquared.gitlabjenkins.webhook.build;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Remembers the web hook deliveries that have already been processed for a project, so that hooks retried by GitLab
+ * or replayed by a proxy don't trigger the same builds again.
+ */
+public final class WebHookDeliveryCache {
+
+    static final int MAX_SIZE = Integer.getInteger(WebHookDeliveryCache.class.getName() + ".maxSize", 10000);
+    static final int EXPIRE_MINUTES = Integer.getInteger(WebHookDeliveryCache.class.getName() + ".expireMinutes", 60);
+
+    private static final WebHookDeliveryCache INSTANCE = new WebHookDeliveryCache();
+
+    private final ConcurrentMap<String, Boolean> deliveries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private WebHookDeliveryCache() {
+        Cache<String, Boolean> cache = CacheBuilder.newBuilder()
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .maximumSize(MAX_SIZE)
+            .expireAfterWrite(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+        deliveries = cache.asMap();
+    }
+
+    public static WebHookDeliveryCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the delivery for the given project.
+     *
+     * @return {@code false} if the same delivery has already been registered for the project
+     */
+    public boolean register(String projectName, String deliveryKey) {
+        if (deliveries.putIfAbsent(toKey(projectName, deliveryKey), Boolean.TRUE) == null) {
+            missCount.incrementAndGet();
+            return true;
+        }
+        hitCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Forgets the delivery again, e.g. because processing it failed and a retry should be accepted.
+     */
+    public void unregister(String projectName, String deliveryKey) {
+        deliveries.remove(toKey(projectName, deliveryKey));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public int getSize() {
+        return deliveries.size();
+    }
+
+    void clear() {
+        deliveries.clear();
+    }
+
+    private String toKey(String projectName, String deliveryKey) {
+        return Hashing.murmur3_128().newHasher()
+            .putString(projectName, UTF_8)
+            .putChar('\n')
+            .putString(deliveryKey, UTF_8)
+            .hash()
+            .toString();
+    }
+}
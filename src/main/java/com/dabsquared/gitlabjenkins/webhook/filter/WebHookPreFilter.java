@@ -0,0 +1,114 @@
+package com.dabsquared.gitlabjenkins.webhook.filter;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.util.ACLUtil;
+import com.dabsquared.gitlabjenkins.webhook.route.GitLabJobIndex;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Rejects web hooks that none of the jobs they are meant for would build, before the payload is bound into the hook
+ * model. The decision is made on a {@link WebHookSummary} of the payload with the filters of the jobs' triggers;
+ * whenever the summary isn't conclusive the hook is passed on.
+ */
+public final class WebHookPreFilter {
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookPreFilter.class.getName());
+    private static final boolean DISABLED = Boolean.getBoolean(WebHookPreFilter.class.getName() + ".disabled");
+    private static final WebHookPreFilter INSTANCE = new WebHookPreFilter();
+
+    private final AtomicLong scannedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private WebHookPreFilter() { }
+
+    public static WebHookPreFilter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return {@code false} if the hook certainly won't trigger a build of the given project
+     */
+    public boolean accepts(Item project, String eventType, byte[] body, Charset charset) {
+        if (DISABLED || !(project instanceof Job<?, ?>)) {
+            return true;
+        }
+        GitLabPushTrigger trigger = GitLabPushTrigger.getFromJob((Job<?, ?>) project);
+        if (trigger == null) {
+            return true;
+        }
+        WebHookSummary summary = summarize(eventType, body, charset);
+        if (summary == null || trigger.accepts(summary)) {
+            return true;
+        }
+        reject(eventType, project.getFullName());
+        return false;
+    }
+
+    /**
+     * @return {@code false} if the hook certainly won't trigger a build of any of the jobs it would be routed to
+     */
+    public boolean acceptsRouted(String eventType, byte[] body, Charset charset) {
+        if (DISABLED) {
+            return true;
+        }
+        final WebHookSummary summary = summarize(eventType, body, charset);
+        if (summary == null) {
+            return true;
+        }
+        final Set<String> jobs = GitLabJobIndex.instance().findJobs(summary);
+        boolean accepted = ACLUtil.impersonate(ACL.SYSTEM, new ACLUtil.Function<Boolean>() {
+            public Boolean invoke() {
+                for (String fullName : jobs) {
+                    Job<?, ?> job = Jenkins.getInstance().getItemByFullName(fullName, Job.class);
+                    GitLabPushTrigger trigger = job == null ? null : GitLabPushTrigger.getFromJob(job);
+                    if (trigger != null && trigger.accepts(summary)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+        if (!accepted) {
+            reject(eventType, jobs);
+        }
+        return accepted;
+    }
+
+    public long getScannedCount() {
+        return scannedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private WebHookSummary summarize(String eventType, byte[] body, Charset charset) {
+        scannedCount.incrementAndGet();
+        try {
+            return WebHookSummary.read(eventType, new InputStreamReader(new ByteArrayInputStream(body), charset));
+        } catch (IOException e) {
+            // let the hook model binding report the broken payload
+            LOGGER.log(Level.FINE, "Failed to scan web hook payload", e);
+            return null;
+        }
+    }
+
+    private void reject(String eventType, Object jobs) {
+        rejectedCount.incrementAndGet();
+        LOGGER.log(Level.FINE, "Skipping {0}, filtered out by {1}", toArray(eventType, jobs));
+    }
+}
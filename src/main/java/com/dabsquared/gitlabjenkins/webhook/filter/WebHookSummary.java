@@ -0,0 +1,183 @@
+package com.dabsquared.gitlabjenkins.webhook.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The few fields of a web hook payload the trigger filters look at, read with a streaming scan that skips all the
+ * other parts of the payload instead of binding it into the hook model.
+ */
+public final class WebHookSummary {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> OBJECT_PATHS = ImmutableSet.of(
+        "repository", "project", "object_attributes", "object_attributes.target", "merge_request");
+    private static final Set<String> VALUE_PATHS = ImmutableSet.of(
+        "ref", "after", "project_id", "commits.message",
+        "object_attributes.state", "object_attributes.note", "object_attributes.target_branch", "object_attributes.description",
+        "object_attributes.project_id", "object_attributes.target_project_id",
+        "merge_request.target_branch", "merge_request.description",
+        "repository.url", "repository.git_http_url", "repository.git_ssh_url",
+        "project.url", "project.http_url", "project.ssh_url",
+        "object_attributes.target.url", "object_attributes.target.http_url", "object_attributes.target.ssh_url");
+
+    private final String eventType;
+    private final Map<String, String> values;
+
+    private WebHookSummary(String eventType, Map<String, String> values) {
+        this.eventType = eventType;
+        this.values = values;
+    }
+
+    public static WebHookSummary read(String eventType, Reader json) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Web hook payload is not a JSON object");
+            }
+            scanObject(parser, "", values);
+        }
+        return new WebHookSummary(eventType, values);
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getRef() {
+        return values.get("ref");
+    }
+
+    public String getAfter() {
+        return values.get("after");
+    }
+
+    public String getState() {
+        return values.get("object_attributes.state");
+    }
+
+    public String getNote() {
+        return values.get("object_attributes.note");
+    }
+
+    /**
+     * @return the branch the trigger handler of the event type passes to the branch filter
+     */
+    public String getTargetBranch() {
+        switch (eventType) {
+            case "Push Hook":
+            case "Tag Push Hook":
+                return getRef() == null ? null : getRef().replaceFirst("^refs/heads/", "");
+            case "Merge Request Hook":
+                return values.get("object_attributes.target_branch");
+            case "Note Hook":
+                return values.get("merge_request.target_branch");
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the text the trigger handler of the event type checks for ci-skip contains {@code [ci-skip]}
+     */
+    public boolean isCiSkip() {
+        String text;
+        switch (eventType) {
+            case "Push Hook":
+            case "Tag Push Hook":
+                text = values.get("commits.message");
+                break;
+            case "Merge Request Hook":
+                text = values.get("object_attributes.description");
+                break;
+            case "Note Hook":
+                text = values.get("merge_request.description");
+                break;
+            default:
+                text = null;
+        }
+        return text != null && text.contains("[ci-skip]");
+    }
+
+    public Integer getProjectId() {
+        String projectId;
+        switch (eventType) {
+            case "Push Hook":
+            case "Tag Push Hook":
+                projectId = values.get("project_id");
+                break;
+            case "Merge Request Hook":
+                projectId = values.get("object_attributes.target_project_id");
+                break;
+            case "Note Hook":
+                projectId = values.get("object_attributes.project_id");
+                break;
+            default:
+                projectId = null;
+        }
+        try {
+            return projectId == null ? null : Integer.valueOf(projectId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public List<String> getRepositoryUrls() {
+        String project = eventType.equals("Merge Request Hook") ? "object_attributes.target." : "project.";
+        List<String> result = new ArrayList<>();
+        for (String path : new String[] {"repository.url", "repository.git_http_url", "repository.git_ssh_url",
+                                         project + "url", project + "http_url", project + "ssh_url"}) {
+            if (values.get(path) != null) {
+                result.add(values.get(path));
+            }
+        }
+        return result;
+    }
+
+    private static void scanObject(JsonParser parser, String prefix, Map<String, String> values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = prefix + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                if (OBJECT_PATHS.contains(path)) {
+                    scanObject(parser, path + '.', values);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                if (path.equals("commits")) {
+                    scanCommits(parser, values);
+                } else {
+                    parser.skipChildren();
+                }
+            } else if (VALUE_PATHS.contains(path)) {
+                values.put(path, token == JsonToken.VALUE_NULL ? null : parser.getText());
+            }
+        }
+    }
+
+    private static void scanCommits(JsonParser parser, Map<String, String> values) throws IOException {
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token == null) {
+                throw new IOException("Unexpected end of web hook payload");
+            }
+            if (token == JsonToken.START_OBJECT) {
+                // only the message of the last commit is of interest
+                values.remove("commits.message");
+                scanObject(parser, "commits.", values);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+}
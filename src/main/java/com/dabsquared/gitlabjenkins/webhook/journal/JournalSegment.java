@@ -0,0 +1,204 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A memory mapped file of the {@link WebHookJournal}.
+ *
+ * Every entry is written as its length, a status byte and the encoded web hook. The length is written last, so a
+ * partially written entry ends the segment when it is read back. The file is unmapped before it is deleted, as a mapped
+ * file can't be deleted on every platform.
+ */
+class JournalSegment {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalSegment.class.getName());
+    private static final byte PENDING = 1;
+    private static final byte DONE = 2;
+    private static final int HEADER_SIZE = 5;
+
+    private final long sequence;
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final long createdAt;
+    private int position;
+    private int pending;
+    private volatile boolean dirty;
+    private boolean deleted;
+
+    private JournalSegment(long sequence, File file, MappedByteBuffer buffer, long createdAt) {
+        this.sequence = sequence;
+        this.file = file;
+        this.buffer = buffer;
+        this.createdAt = createdAt;
+    }
+
+    static JournalSegment create(long sequence, File file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(0);
+        }
+        return new JournalSegment(sequence, file, map(file, size), System.currentTimeMillis());
+    }
+
+    /**
+     * Opens an existing segment and reads the pending entries.
+     */
+    static JournalSegment open(long sequence, File file, List<JournaledWebHook> pendingWebHooks) throws IOException {
+        JournalSegment segment = new JournalSegment(sequence, file, map(file, (int) file.length()), file.lastModified());
+        segment.read(pendingWebHooks);
+        return segment;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    int getPending() {
+        return pending;
+    }
+
+    long getSize() {
+        return buffer.capacity();
+    }
+
+    boolean hasRemaining(int recordLength) {
+        return buffer.capacity() - position >= HEADER_SIZE + recordLength;
+    }
+
+    /**
+     * @return the offset of the appended entry
+     */
+    int append(byte[] record) {
+        int offset = position;
+        buffer.put(offset + 4, PENDING);
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + HEADER_SIZE);
+        target.put(record);
+        buffer.putInt(offset, record.length);
+        position = offset + HEADER_SIZE + record.length;
+        pending++;
+        dirty = true;
+        return offset;
+    }
+
+    void markDone(int offset) {
+        if (buffer.get(offset + 4) == PENDING) {
+            buffer.put(offset + 4, DONE);
+            pending--;
+            dirty = true;
+        }
+    }
+
+    synchronized void force() {
+        if (dirty && !deleted) {
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    /**
+     * Unmaps and deletes the segment, it must not be used anymore afterwards.
+     *
+     * @return {@code true} if the file has been deleted
+     */
+    synchronized boolean delete() {
+        if (!deleted) {
+            deleted = true;
+            unmap(buffer);
+        }
+        return file.delete();
+    }
+
+    static byte[] encode(long receivedAt, String eventType, String projectName, String deliveryId, Charset charset, byte[] body)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length + 256);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeLong(receivedAt);
+        data.writeUTF(eventType);
+        data.writeUTF(projectName == null ? "" : projectName);
+        data.writeUTF(deliveryId == null ? "" : deliveryId);
+        data.writeUTF(charset.name());
+        data.writeInt(body.length);
+        data.write(body);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    private void read(List<JournaledWebHook> pendingWebHooks) throws IOException {
+        int offset = 0;
+        while (buffer.capacity() - offset >= HEADER_SIZE) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_SIZE) {
+                break;
+            }
+            if (buffer.get(offset + 4) == PENDING) {
+                byte[] record = new byte[length];
+                ByteBuffer source = buffer.duplicate();
+                source.position(offset + HEADER_SIZE);
+                source.get(record);
+                pendingWebHooks.add(decode(WebHookJournal.toEntryId(sequence, offset), record));
+                pending++;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        position = offset;
+    }
+
+    private static JournaledWebHook decode(long entryId, byte[] record) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        long receivedAt = data.readLong();
+        String eventType = data.readUTF();
+        String projectName = data.readUTF();
+        String deliveryId = data.readUTF();
+        Charset charset = Charset.forName(data.readUTF());
+        byte[] body = new byte[data.readInt()];
+        data.readFully(body);
+        return new JournaledWebHook(entryId, receivedAt, eventType, projectName.isEmpty() ? null : projectName,
+                                    deliveryId.isEmpty() ? null : deliveryId, charset, body);
+    }
+
+    /**
+     * Releases the mapping right away instead of when the buffer is garbage collected. Without access to the cleaner of
+     * the buffer the mapping is left to the garbage collector.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to unmap journal segment", e);
+        }
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // the mapping stays valid after the channel has been closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import java.nio.charset.Charset;
+
+/**
+ * A web hook read back from the {@link WebHookJournal}.
+ */
+public class JournaledWebHook {
+
+    private final long entryId;
+    private final long receivedAt;
+    private final String eventType;
+    private final String projectName;
+    private final String deliveryId;
+    private final Charset charset;
+    private final byte[] body;
+
+    JournaledWebHook(long entryId, long receivedAt, String eventType, String projectName, String deliveryId, Charset charset, byte[] body) {
+        this.entryId = entryId;
+        this.receivedAt = receivedAt;
+        this.eventType = eventType;
+        this.projectName = projectName;
+        this.deliveryId = deliveryId;
+        this.charset = charset;
+        this.body = body;
+    }
+
+    public long getEntryId() {
+        return entryId;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return the full name of the item the web hook has been posted to or {@code null} if it has been posted to the
+     *         web hook root
+     */
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,37 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Marks the {@link WebHookJournal} entry of a web hook as done once the wrapped action has processed it.
+ */
+public class JournaledWebHookAction implements WebHookAction {
+
+    private final long entryId;
+    private final WebHookAction action;
+    private final boolean processedOnReturn;
+
+    /**
+     * @param processedOnReturn {@code false} if the action hands the web hook over to another thread, which marks the
+     *                          entry as done itself
+     */
+    public JournaledWebHookAction(long entryId, WebHookAction action, boolean processedOnReturn) {
+        this.entryId = entryId;
+        this.action = action;
+        this.processedOnReturn = processedOnReturn;
+    }
+
+    public void execute(StaplerResponse response) {
+        try {
+            action.execute(response);
+        } catch (RuntimeException e) {
+            // the actions answer with an HTTP response once they are done, errors are not retried by a replay either
+            WebHookJournal.instance().markDone(entryId);
+            throw e;
+        }
+        if (processedOnReturn) {
+            WebHookJournal.instance().markDone(entryId);
+        }
+    }
+}
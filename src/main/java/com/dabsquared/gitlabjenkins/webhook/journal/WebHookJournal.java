@@ -0,0 +1,234 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import com.dabsquared.gitlabjenkins.webhook.ActionResolver;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Append-only journal of the web hooks received by Jenkins, so that web hooks that were accepted but not processed
+ * before Jenkins went down are replayed on the next start.
+ *
+ * The journal consists of memory mapped segment files in {@code JENKINS_HOME/gitlab-webhook-journal}. Appending an
+ * entry only copies it into the mapped memory; the segments are forced to disk in batches by a background task.
+ * Segments are deleted as soon as all their entries are done, or when they exceed the configured age or total size.
+ */
+public final class WebHookJournal {
+
+    public static final long NO_ENTRY = -1;
+
+    static final int SEGMENT_SIZE = Integer.getInteger(WebHookJournal.class.getName() + ".segmentSize", 16 * 1024 * 1024);
+    static final long MAX_SIZE = Long.getLong(WebHookJournal.class.getName() + ".maxSize", 256L * 1024 * 1024);
+    static final long MAX_AGE_HOURS = Long.getLong(WebHookJournal.class.getName() + ".maxAgeHours", 72);
+    static final long FLUSH_INTERVAL_MILLIS = Long.getLong(WebHookJournal.class.getName() + ".flushInterval", 1000);
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookJournal.class.getName());
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile("^segment-(?<sequence>\\d+)\\.journal$");
+    private static final WebHookJournal INSTANCE = new WebHookJournal();
+
+    private final NavigableMap<Long, JournalSegment> segments = new TreeMap<>();
+    private File directory;
+    private JournalSegment active;
+    private boolean flushScheduled;
+    private volatile boolean enabled;
+
+    private WebHookJournal() { }
+
+    public static WebHookJournal instance() {
+        return INSTANCE;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the id of the journal entry or {@link #NO_ENTRY} if the journal is disabled or the web hook couldn't be
+     *         written
+     */
+    public long append(String eventType, String projectName, String deliveryId, Charset charset, byte[] body) {
+        if (!enabled) {
+            return NO_ENTRY;
+        }
+        try {
+            byte[] record = JournalSegment.encode(System.currentTimeMillis(), eventType, projectName, deliveryId, charset, body);
+            synchronized (this) {
+                JournalSegment segment = getActiveSegment(record.length);
+                long entryId = toEntryId(segment.getSequence(), segment.append(record));
+                scheduleFlush();
+                return entryId;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write web hook to journal", e);
+            return NO_ENTRY;
+        }
+    }
+
+    /**
+     * Marks the entry as processed, so it isn't replayed on the next start.
+     */
+    public synchronized void markDone(long entryId) {
+        if (entryId == NO_ENTRY) {
+            return;
+        }
+        JournalSegment segment = segments.get(entryId >>> 32);
+        if (segment != null) {
+            segment.markDone((int) entryId);
+            scheduleFlush();
+            if (segment.getPending() == 0 && segment != active) {
+                delete(segment);
+            }
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    static long toEntryId(long sequence, int offset) {
+        return sequence << 32 | offset;
+    }
+
+    /**
+     * Opens the journal and reads the web hooks that haven't been processed yet.
+     */
+    synchronized List<JournaledWebHook> open(File directory) throws IOException {
+        this.directory = directory;
+        List<JournaledWebHook> pendingWebHooks = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return pendingWebHooks;
+        }
+        for (File file : files) {
+            Matcher matcher = SEGMENT_PATTERN.matcher(file.getName());
+            if (matcher.matches()) {
+                long sequence = Long.parseLong(matcher.group("sequence"));
+                JournalSegment segment = JournalSegment.open(sequence, file, pendingWebHooks);
+                if (segment.getPending() == 0) {
+                    delete(segment);
+                } else {
+                    segments.put(sequence, segment);
+                }
+            }
+        }
+        return pendingWebHooks;
+    }
+
+    private JournalSegment getActiveSegment(int recordLength) throws IOException {
+        if (active == null || !active.hasRemaining(recordLength)) {
+            JournalSegment previous = active;
+            long sequence = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+            active = JournalSegment.create(sequence, new File(getDirectory(), "segment-" + sequence + ".journal"),
+                                           Math.max(SEGMENT_SIZE, recordLength + 64));
+            segments.put(sequence, active);
+            if (previous != null && previous.getPending() == 0) {
+                delete(previous);
+            }
+            enforceRetention();
+        }
+        return active;
+    }
+
+    private File getDirectory() throws IOException {
+        if (directory == null) {
+            directory = new File(Jenkins.getInstance().getRootDir(), "gitlab-webhook-journal");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory " + directory);
+        }
+        return directory;
+    }
+
+    private void enforceRetention() {
+        long totalSize = 0;
+        for (JournalSegment segment : segments.values()) {
+            totalSize += segment.getSize();
+        }
+        long minCreatedAt = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(MAX_AGE_HOURS);
+        Iterator<JournalSegment> iterator = new ArrayList<>(segments.values()).iterator();
+        while (iterator.hasNext()) {
+            JournalSegment segment = iterator.next();
+            if (segment == active || (totalSize <= MAX_SIZE && segment.getCreatedAt() >= minCreatedAt)) {
+                break;
+            }
+            LOGGER.log(Level.WARNING, "Dropping journal segment {0} with {1} unprocessed web hooks",
+                       toArray(segment.getFile(), segment.getPending()));
+            totalSize -= segment.getSize();
+            delete(segment);
+        }
+    }
+
+    private void delete(JournalSegment segment) {
+        segments.remove(segment.getSequence());
+        if (!segment.delete() && segment.getFile().exists()) {
+            LOGGER.log(Level.WARNING, "Failed to delete journal segment {0}", segment.getFile());
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Timer.get().schedule(new Runnable() {
+                public void run() {
+                    flush();
+                }
+            }, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        List<JournalSegment> dirtySegments;
+        synchronized (this) {
+            flushScheduled = false;
+            dirtySegments = new ArrayList<>(segments.values());
+        }
+        for (JournalSegment segment : dirtySegments) {
+            segment.force();
+        }
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void replay() throws IOException {
+        final List<JournaledWebHook> pendingWebHooks =
+            INSTANCE.open(new File(Jenkins.getInstance().getRootDir(), "gitlab-webhook-journal"));
+        if (pendingWebHooks.isEmpty()) {
+            return;
+        }
+        LOGGER.log(Level.INFO, "Replaying {0} web hooks from the journal", pendingWebHooks.size());
+        Timer.get().submit(new Runnable() {
+            public void run() {
+                ActionResolver actionResolver = new ActionResolver();
+                for (JournaledWebHook webHook : pendingWebHooks) {
+                    try {
+                        actionResolver.replay(webHook);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.WARNING, "Failed to replay web hook " + webHook.getEventType() + " for " + webHook.getProjectName(), e);
+                    } finally {
+                        INSTANCE.markDone(webHook.getEntryId());
+                    }
+                }
+            }
+        });
+    }
+}
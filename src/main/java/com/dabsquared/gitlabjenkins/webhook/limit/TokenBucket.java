@@ -0,0 +1,62 @@
+package com.dabsquared.gitlabjenkins.webhook.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that refills with a fixed rate up to its capacity.
+ */
+class TokenBucket {
+
+    private final double tokensPerSecond;
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double tokensPerSecond, double capacity, long now) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    TokenBucket(double tokensPerSecond, double capacity) {
+        this(tokensPerSecond, capacity, System.nanoTime());
+    }
+
+    boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the seconds until the next token is available
+     */
+    synchronized int getSecondsUntilRefill(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (int) Math.ceil((1 - tokens) / tokensPerSecond);
+    }
+
+    int getSecondsUntilRefill() {
+        return getSecondsUntilRefill(System.nanoTime());
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.dabsquared.gitlabjenkins.webhook.limit;
+
+import com.dabsquared.gitlabjenkins.webhook.queue.WebHookQueue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.model.Queue;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponses.HttpResponseException;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Limits the rate of the web hooks posted to Jenkins, globally and per project, and sheds web hooks while the build
+ * queue or the web hook queue is overloaded. Rejected web hooks are answered with 429 Too Many Requests and a
+ * Retry-After header, so GitLab backs off.
+ */
+public final class WebHookRateLimiter {
+
+    /**
+     * Number of seconds the rate may be exceeded before hooks get rejected.
+     */
+    static final int BURST_SECONDS = 10;
+    static final int OVERLOAD_RETRY_AFTER_SECONDS = 30;
+    static final double WEB_HOOK_QUEUE_SATURATION = 0.9;
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookRateLimiter.class.getName());
+    private static final WebHookRateLimiter INSTANCE = new WebHookRateLimiter();
+
+    private final Cache<String, TokenBucket> projectBuckets = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private volatile TokenBucket globalBucket;
+    private volatile int globalRate;
+    private volatile int projectRate;
+    private volatile int maxQueueLength;
+
+    private WebHookRateLimiter() { }
+
+    public static WebHookRateLimiter instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param globalRate     the web hooks per second accepted in total, 0 for no limit
+     * @param projectRate    the web hooks per second accepted per project, 0 for no limit
+     * @param maxQueueLength the length of the build queue above which web hooks are rejected, 0 for no limit
+     */
+    public synchronized void configure(int globalRate, int projectRate, int maxQueueLength) {
+        if (globalRate != this.globalRate || globalBucket == null) {
+            globalBucket = globalRate > 0 ? newBucket(globalRate) : null;
+        }
+        if (projectRate != this.projectRate) {
+            projectBuckets.invalidateAll();
+        }
+        this.globalRate = Math.max(0, globalRate);
+        this.projectRate = Math.max(0, projectRate);
+        this.maxQueueLength = Math.max(0, maxQueueLength);
+    }
+
+    /**
+     * Acquires a permit for a web hook of the given project.
+     *
+     * @param projectName the name the web hook was sent for or {@code null} if only the global limit applies
+     * @throws HttpResponseException with status 429 if the web hook has to be rejected
+     */
+    public void acquire(String projectName) {
+        if (isOverloaded()) {
+            shed.incrementAndGet();
+            throw tooManyRequests(OVERLOAD_RETRY_AFTER_SECONDS, "Jenkins is overloaded");
+        }
+        TokenBucket bucket = globalBucket;
+        if (bucket != null && !bucket.tryAcquire()) {
+            rateLimited.incrementAndGet();
+            throw tooManyRequests(bucket.getSecondsUntilRefill(), "Web hook rate limit exceeded");
+        }
+        bucket = getProjectBucket(projectName);
+        if (bucket != null && !bucket.tryAcquire()) {
+            rateLimited.incrementAndGet();
+            throw tooManyRequests(bucket.getSecondsUntilRefill(), "Web hook rate limit exceeded for " + projectName);
+        }
+        accepted.incrementAndGet();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    private boolean isOverloaded() {
+        int currentMaxQueueLength = maxQueueLength;
+        if (currentMaxQueueLength > 0) {
+            Jenkins jenkins = Jenkins.getInstance();
+            Queue queue = jenkins == null ? null : jenkins.getQueue();
+            if (queue != null && queue.getApproximateItemsQuickly().size() >= currentMaxQueueLength) {
+                LOGGER.log(Level.FINE, "Build queue holds more than {0} items", currentMaxQueueLength);
+                return true;
+            }
+        }
+        WebHookQueue webHookQueue = WebHookQueue.instance();
+        if (webHookQueue.getQueueDepth() >= webHookQueue.getCapacity() * WEB_HOOK_QUEUE_SATURATION) {
+            LOGGER.log(Level.FINE, "Web hook queue is saturated: {0}/{1}", toArray(webHookQueue.getQueueDepth(), webHookQueue.getCapacity()));
+            return true;
+        }
+        return false;
+    }
+
+    private TokenBucket getProjectBucket(String projectName) {
+        final int currentProjectRate = projectRate;
+        if (currentProjectRate == 0 || projectName == null) {
+            return null;
+        }
+        try {
+            return projectBuckets.get(projectName, new Callable<TokenBucket>() {
+                public TokenBucket call() {
+                    return newBucket(currentProjectRate);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TokenBucket newBucket(int rate) {
+        return new TokenBucket(rate, rate * BURST_SECONDS);
+    }
+
+    private static HttpResponseException tooManyRequests(final int retryAfter, final String message) {
+        return new HttpResponseException() {
+            public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException {
+                rsp.setHeader("Retry-After", String.valueOf(Math.max(1, retryAfter)));
+                rsp.sendError(429, message);
+            }
+        };
+    }
+}
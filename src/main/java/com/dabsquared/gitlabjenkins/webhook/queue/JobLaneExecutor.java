@@ -0,0 +1,169 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches web hooks to jobs on a bounded pool of threads with one sequential lane per job: the tasks of a lane
+ * run one after another in the order they have been submitted, while the lanes of different jobs run in parallel.
+ *
+ * Tasks must not wait for other tasks of the executor, as that could block all of its threads.
+ */
+public final class JobLaneExecutor {
+
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final JobLaneExecutor INSTANCE = new JobLaneExecutor();
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private int threads;
+    private int maxLaneDepth;
+
+    private JobLaneExecutor() {
+        configure(DEFAULT_THREADS);
+    }
+
+    public static JobLaneExecutor instance() {
+        return INSTANCE;
+    }
+
+    public synchronized void configure(int threads) {
+        threads = Math.max(1, threads);
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                              new NamingThreadFactory(new DaemonThreadFactory(), "GitLab web hook dispatcher"));
+            executor.allowCoreThreadTimeOut(true);
+        } else if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Runs the task after all the tasks submitted before for the same lane.
+     *
+     * @param lane usually the full name of the job the task dispatches to
+     */
+    public Future<?> submit(String lane, Runnable task) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        synchronized (this) {
+            Lane tasks = lanes.get(lane);
+            if (tasks == null) {
+                tasks = new Lane(lane);
+                lanes.put(lane, tasks);
+            }
+            tasks.add(future);
+            maxLaneDepth = Math.max(maxLaneDepth, tasks.size());
+            if (!tasks.scheduled) {
+                tasks.scheduled = true;
+                executor.execute(tasks);
+            }
+        }
+        submitted.incrementAndGet();
+        return future;
+    }
+
+    public synchronized int getThreads() {
+        return threads;
+    }
+
+    public synchronized int getActiveLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * @return the number of tasks waiting in all lanes, not including the running ones
+     */
+    public synchronized int getQueuedCount() {
+        int result = 0;
+        for (Lane lane : lanes.values()) {
+            result += lane.size();
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of tasks waiting in the deepest lane
+     */
+    public synchronized int getLaneDepth() {
+        int result = 0;
+        for (Lane lane : lanes.values()) {
+            result = Math.max(result, lane.size());
+        }
+        return result;
+    }
+
+    /**
+     * @return the highest number of tasks that have been waiting in a single lane
+     */
+    public synchronized int getMaxLaneDepth() {
+        return maxLaneDepth;
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    private class Lane implements Runnable {
+        private final String name;
+        private final Queue<FutureTask<?>> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        private void add(FutureTask<?> task) {
+            tasks.add(task);
+        }
+
+        private int size() {
+            return tasks.size();
+        }
+
+        public void run() {
+            FutureTask<?> task;
+            synchronized (JobLaneExecutor.this) {
+                task = tasks.poll();
+            }
+            if (task != null) {
+                try {
+                    task.run();
+                } finally {
+                    completed.incrementAndGet();
+                }
+            }
+            synchronized (JobLaneExecutor.this) {
+                if (tasks.isEmpty()) {
+                    scheduled = false;
+                    lanes.remove(name);
+                } else {
+                    // hand the thread to the other lanes before running the next task of this one
+                    executor.execute(this);
+                }
+            }
+        }
+    }
+}
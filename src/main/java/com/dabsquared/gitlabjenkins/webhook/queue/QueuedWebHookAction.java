@@ -0,0 +1,53 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Hands a web hook over to the {@link WebHookQueue} and answers with 202 Accepted.
+ */
+public class QueuedWebHookAction implements WebHookAction {
+
+    private static final String RETRY_AFTER_SECONDS = "30";
+
+    private final String eventType;
+    private final String projectName;
+    private final String statusUrl;
+    private final Runnable task;
+
+    public QueuedWebHookAction(String eventType, String projectName, String statusUrl, Runnable task) {
+        this.eventType = eventType;
+        this.projectName = projectName;
+        this.statusUrl = statusUrl;
+        this.task = task;
+    }
+
+    public void execute(StaplerResponse response) {
+        WebHookQueue queue = WebHookQueue.instance();
+        WebHookEvent event = queue.submit(eventType, projectName, task);
+        if (event == null) {
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            throw HttpResponses.errorWithoutStack(503, "Web hook queue is full");
+        }
+        try {
+            JSONObject object = new JSONObject();
+            object.put("id", event.getId());
+            object.put("status", event.getStatus().getValue());
+            object.put("queueDepth", queue.getQueueDepth());
+            object.put("statusUrl", statusUrl + event.getId());
+            response.setStatus(202);
+            response.setContentType("application/json");
+            PrintWriter writer = response.getWriter();
+            writer.write(object.toString());
+            writer.flush();
+            writer.close();
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A web hook delivery that has been accepted for asynchronous processing.
+ */
+public class WebHookEvent {
+
+    private final String id;
+    private final String eventType;
+    private final String projectName;
+    private final long receivedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String message;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    WebHookEvent(String eventType, String projectName) {
+        this.id = UUID.randomUUID().toString();
+        this.eventType = eventType;
+        this.projectName = projectName;
+        this.receivedAt = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    void started() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void finished(Status status, String message) {
+        this.finishedAt = System.currentTimeMillis();
+        this.message = message;
+        this.status = status;
+        done.countDown();
+    }
+
+    /**
+     * @return {@code true} if the event has been processed within the given time
+     */
+    boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("id", id)
+                .append("eventType", eventType)
+                .append("projectName", projectName)
+                .append("status", status)
+                .toString();
+    }
+
+    public enum Status {
+        QUEUED("queued"), RUNNING("running"), DONE("done"), FAILED("failed");
+
+        private final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Reports what happened to a web hook that has been accepted by the {@link WebHookQueue}.
+ */
+public class WebHookEventStatusAction implements WebHookAction {
+
+    private final String eventId;
+
+    public WebHookEventStatusAction(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public void execute(StaplerResponse response) {
+        WebHookQueue queue = WebHookQueue.instance();
+        WebHookEvent event = queue.getEvent(eventId);
+        if (event == null) {
+            throw HttpResponses.notFound();
+        }
+        try {
+            JSONObject object = new JSONObject();
+            object.put("id", event.getId());
+            object.put("event", event.getEventType());
+            object.put("project", event.getProjectName());
+            object.put("status", event.getStatus().getValue());
+            object.put("receivedAt", event.getReceivedAt());
+            if (event.getStartedAt() > 0) {
+                object.put("startedAt", event.getStartedAt());
+            }
+            if (event.getFinishedAt() > 0) {
+                object.put("finishedAt", event.getFinishedAt());
+            }
+            if (event.getMessage() != null) {
+                object.put("message", event.getMessage());
+            }
+            object.put("queueDepth", queue.getQueueDepth());
+            writeBody(response, object);
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    private void writeBody(StaplerResponse response, JSONObject body) throws IOException {
+        response.setContentType("application/json");
+        PrintWriter writer = response.getWriter();
+        writer.write(body.toString());
+        writer.flush();
+        writer.close();
+    }
+}
@@ -0,0 +1,254 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import com.dabsquared.gitlabjenkins.webhook.journal.WebHookJournal;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.kohsuke.stapler.HttpResponses.HttpResponseException;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Bounded work queue that processes web hooks on a dedicated pool of worker threads,
+ * so the request thread can answer GitLab right after the payload has been read.
+ */
+public final class WebHookQueue {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+    public static final int DEFAULT_WORKER_THREADS = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(WebHookQueue.class.getName());
+    private static final int SHUTDOWN_TIMEOUT = Integer.getInteger(WebHookQueue.class.getName() + ".shutdownTimeout", 10);
+    private static final WebHookQueue INSTANCE = new WebHookQueue();
+
+    private final Cache<String, WebHookEvent> events = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private int capacity;
+    private int workerThreads;
+
+    private WebHookQueue() {
+        configure(DEFAULT_CAPACITY, DEFAULT_WORKER_THREADS);
+    }
+
+    public static WebHookQueue instance() {
+        return INSTANCE;
+    }
+
+    public synchronized void configure(int capacity, int workerThreads) {
+        capacity = Math.max(1, capacity);
+        workerThreads = Math.max(1, workerThreads);
+        if (executor == null || executor.isShutdown() || capacity != this.capacity) {
+            ThreadPoolExecutor previous = executor;
+            executor = newExecutor(capacity, workerThreads);
+            if (previous != null) {
+                // already queued hooks are still processed by the previous pool
+                previous.shutdown();
+            }
+        } else if (workerThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(workerThreads);
+            executor.setCorePoolSize(workerThreads);
+        } else {
+            executor.setCorePoolSize(workerThreads);
+            executor.setMaximumPoolSize(workerThreads);
+        }
+        this.capacity = capacity;
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @return the accepted event or {@code null} if the queue is full
+     */
+    public WebHookEvent submit(String eventType, String projectName, Runnable task) {
+        WebHookEvent event = new WebHookEvent(eventType, projectName);
+        try {
+            getExecutor().execute(new TrackedTask(event, task));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Web hook queue is full, rejecting {0} for {1}", toArray(eventType, projectName));
+            return null;
+        }
+        accepted.incrementAndGet();
+        events.put(event.getId(), event);
+        return event;
+    }
+
+    public WebHookEvent getEvent(String id) {
+        return events.getIfPresent(id);
+    }
+
+    public int getQueueDepth() {
+        return getExecutor().getQueue().size();
+    }
+
+    public int getActiveWorkers() {
+        return getExecutor().getActiveCount();
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Stops the workers once the queued hooks are done. If the journal is enabled, the hooks still waiting in the queue
+     * are dropped, as they are replayed from the journal on the next start. Otherwise they are processed before Jenkins
+     * goes down, as GitLab won't send them again.
+     */
+    @Terminator
+    public static void shutdown() throws InterruptedException {
+        ThreadPoolExecutor executor = INSTANCE.getExecutor();
+        executor.shutdown();
+        if (WebHookJournal.instance().isEnabled()) {
+            executor.getQueue().clear();
+        }
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+            LOGGER.log(Level.WARNING, "Web hook workers did not finish within {0} seconds, {1} web hooks are left unprocessed",
+                       toArray(SHUTDOWN_TIMEOUT, executor.getQueue().size()));
+        }
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    private static ThreadPoolExecutor newExecutor(int capacity, int workerThreads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(capacity),
+                                                             new NamingThreadFactory(new DaemonThreadFactory(), "GitLab web hook worker"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private class TrackedTask implements Runnable {
+        private final WebHookEvent event;
+        private final Runnable task;
+
+        private TrackedTask(WebHookEvent event, Runnable task) {
+            this.event = event;
+            this.task = task;
+        }
+
+        public void run() {
+            event.started();
+            try {
+                task.run();
+                event.finished(WebHookEvent.Status.DONE, null);
+            } catch (HttpResponseException e) {
+                // the build actions report a handled hook by throwing the http response, which can also be an error
+                RenderedResponse response = RenderedResponse.of(e);
+                if (response.getStatus() / 100 == 2) {
+                    event.finished(WebHookEvent.Status.DONE, null);
+                } else {
+                    failed.incrementAndGet();
+                    LOGGER.log(Level.INFO, "Failed to process {0} for {1}: {2}",
+                               toArray(event.getEventType(), event.getProjectName(), response.getMessage()));
+                    event.finished(WebHookEvent.Status.FAILED, response.getMessage());
+                }
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                LOGGER.log(Level.WARNING, String.format("Failed to process %s for %s", event.getEventType(), event.getProjectName()), e);
+                event.finished(WebHookEvent.Status.FAILED, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The status and body of an HTTP response thrown by a build action, which are only accessible by rendering it.
+     */
+    static class RenderedResponse {
+        private final int status;
+        private final String body;
+
+        private RenderedResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static RenderedResponse of(HttpResponseException response) {
+            final int[] status = {200};
+            final StringWriter body = new StringWriter();
+            StaplerResponse rsp = (StaplerResponse) Proxy.newProxyInstance(StaplerResponse.class.getClassLoader(), new Class<?>[] {StaplerResponse.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        switch (method.getName()) {
+                            case "setStatus":
+                            case "sendError":
+                                status[0] = (Integer) args[0];
+                                if (args.length > 1 && args[1] instanceof String) {
+                                    body.write((String) args[1]);
+                                }
+                                return null;
+                            case "getWriter":
+                                return new PrintWriter(body);
+                            default:
+                                return defaultValue(method.getReturnType());
+                        }
+                    }
+                });
+            try {
+                response.generateResponse(null, rsp, null);
+            } catch (IOException | ServletException | RuntimeException e) {
+                return new RenderedResponse(500, String.valueOf(e.getMessage()));
+            }
+            return new RenderedResponse(status[0], body.toString().trim());
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getMessage() {
+            return body.isEmpty() ? "HTTP " + status : "HTTP " + status + ": " + body;
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (type == boolean.class) {
+                return false;
+            } else if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            }
+            return null;
+        }
+    }
+}
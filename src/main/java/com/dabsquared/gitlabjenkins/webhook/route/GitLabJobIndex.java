@@ -0,0 +1,331 @@
+package com.dabsquared.gitlabjenkins.webhook.route;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestObjectAttributes;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.NoteHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Project;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Repository;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.WebHook;
+import com.dabsquared.gitlabjenkins.webhook.filter.WebHookSummary;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.plugins.git.GitSCM;
+import hudson.scm.SCM;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.dabsquared.gitlabjenkins.util.LoggerUtil.toArray;
+
+/**
+ * Index of the jobs with a {@link GitLabPushTrigger} by the repositories they build.
+ *
+ * Repositories are indexed by their normalized URL ({@code host/namespace/project}). The URLs seen for a GitLab project id
+ * are remembered, so jobs still configured with the old URL of a renamed or transferred project keep receiving its hooks.
+ * Only the URLs some job is configured for are remembered, for at most {@link #MAX_PROJECT_IDS} project ids, so hooks
+ * can neither grow the index without bounds nor attach arbitrary URLs to a project id.
+ */
+public final class GitLabJobIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(GitLabJobIndex.class.getName());
+    private static final int MAX_PROJECT_IDS = Integer.getInteger(GitLabJobIndex.class.getName() + ".maxProjectIds", 10000);
+    private static final GitLabJobIndex INSTANCE = new GitLabJobIndex();
+
+    private final Map<String, Set<String>> jobsByRepository = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> repositoriesByJob = new ConcurrentHashMap<>();
+    private final Cache<Integer, Set<String>> repositoriesByProjectId = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PROJECT_IDS)
+            .build();
+
+    private GitLabJobIndex() { }
+
+    public static GitLabJobIndex instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the full names of the jobs interested in the given hook
+     */
+    public Set<String> findJobs(WebHook hook) {
+        return findJobs(getRepositories(hook), getProjectId(hook));
+    }
+
+    /**
+     * @return the full names of the jobs interested in the hook with the given summary
+     */
+    public Set<String> findJobs(WebHookSummary summary) {
+        Set<String> repositories = new HashSet<>();
+        for (String url : summary.getRepositoryUrls()) {
+            addNormalized(repositories, url);
+        }
+        return findJobs(repositories, summary.getProjectId());
+    }
+
+    /**
+     * @param project the id, the path ({@code namespace/project}) or a repository URL of a GitLab project. An id is
+     *                only known once a hook of the project has been received.
+     * @return the full names of the jobs building the project
+     */
+    public Set<String> findJobs(String project) {
+        if (project.matches("^[0-9]+$")) {
+            return findJobs(Collections.<String>emptySet(), Integer.valueOf(project));
+        }
+        String path = StringUtils.removeEnd(StringUtils.strip(project.trim(), "/"), ".git").toLowerCase(Locale.ENGLISH);
+        String repository = normalize(project);
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Set<String>> entry : jobsByRepository.entrySet()) {
+            String key = entry.getKey();
+            if (key.equals(repository) || key.substring(key.indexOf('/') + 1).equals(path)) {
+                result.addAll(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private Set<String> findJobs(Set<String> repositories, Integer projectId) {
+        if (projectId != null) {
+            Set<String> knownRepositories = repositoriesByProjectId.getIfPresent(projectId);
+            Set<String> indexedRepositories = getIndexed(repositories);
+            if (knownRepositories == null ? !indexedRepositories.isEmpty() : !knownRepositories.containsAll(indexedRepositories)) {
+                ImmutableSet.Builder<String> builder = ImmutableSet.<String>builder().addAll(indexedRepositories);
+                if (knownRepositories != null) {
+                    builder.addAll(knownRepositories);
+                }
+                knownRepositories = builder.build();
+                repositoriesByProjectId.put(projectId, knownRepositories);
+            }
+            if (knownRepositories != null) {
+                repositories = ImmutableSet.<String>builder().addAll(repositories).addAll(knownRepositories).build();
+            }
+        }
+        Set<String> result = new HashSet<>();
+        for (String repository : repositories) {
+            Set<String> jobs = jobsByRepository.get(repository);
+            if (jobs != null) {
+                result.addAll(jobs);
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getIndexed(Set<String> repositories) {
+        Set<String> result = new HashSet<>();
+        for (String repository : repositories) {
+            if (jobsByRepository.containsKey(repository)) {
+                result.add(repository);
+            }
+        }
+        return result;
+    }
+
+    public int getRepositoryCount() {
+        return jobsByRepository.size();
+    }
+
+    public int getJobCount() {
+        return repositoriesByJob.size();
+    }
+
+    /**
+     * Normalizes a repository URL to {@code host/namespace/project}, so that the HTTP and SSH URLs of a repository
+     * map to the same key.
+     *
+     * @return the normalized URL or {@code null} if the URL can't be parsed
+     */
+    public static String normalize(String url) {
+        if (StringUtils.isBlank(url)) {
+            return null;
+        }
+        try {
+            URIish uri = new URIish(url.trim());
+            String path = StringUtils.removeEnd(StringUtils.strip(uri.getPath(), "/"), ".git");
+            if (uri.getHost() == null || StringUtils.isEmpty(path)) {
+                return null;
+            }
+            return (uri.getHost() + '/' + path).toLowerCase(Locale.ENGLISH);
+        } catch (URISyntaxException e) {
+            LOGGER.log(Level.FINE, "Failed to parse repository url: {0}", url);
+            return null;
+        }
+    }
+
+    synchronized void reindex() {
+        jobsByRepository.clear();
+        repositoriesByJob.clear();
+        for (Job<?, ?> job : Jenkins.getInstance().getAllItems(Job.class)) {
+            add(job.getFullName(), getRepositories(job));
+        }
+        LOGGER.log(Level.INFO, "Indexed {0} jobs for {1} repositories", toArray(getJobCount(), getRepositoryCount()));
+    }
+
+    synchronized void update(Job<?, ?> job) {
+        remove(job.getFullName());
+        add(job.getFullName(), getRepositories(job));
+    }
+
+    synchronized void remove(String fullName) {
+        Set<String> repositories = repositoriesByJob.remove(fullName);
+        if (repositories == null) {
+            return;
+        }
+        for (String repository : repositories) {
+            Set<String> jobs = jobsByRepository.get(repository);
+            if (jobs != null) {
+                Set<String> updated = new HashSet<>(jobs);
+                updated.remove(fullName);
+                if (updated.isEmpty()) {
+                    jobsByRepository.remove(repository);
+                } else {
+                    jobsByRepository.put(repository, ImmutableSet.copyOf(updated));
+                }
+            }
+        }
+    }
+
+    private void add(String fullName, Set<String> repositories) {
+        if (repositories.isEmpty()) {
+            return;
+        }
+        repositoriesByJob.put(fullName, ImmutableSet.copyOf(repositories));
+        for (String repository : repositories) {
+            Set<String> jobs = jobsByRepository.get(repository);
+            jobsByRepository.put(repository, jobs == null
+                ? ImmutableSet.of(fullName)
+                : ImmutableSet.<String>builder().addAll(jobs).add(fullName).build());
+        }
+    }
+
+    private Set<String> getRepositories(Job<?, ?> job) {
+        if (GitLabPushTrigger.getFromJob(job) == null) {
+            return Collections.emptySet();
+        }
+        SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+        if (item == null) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<>();
+        for (SCM scm : item.getSCMs()) {
+            if (scm instanceof GitSCM) {
+                for (RemoteConfig remoteConfig : ((GitSCM) scm).getRepositories()) {
+                    for (URIish uri : remoteConfig.getURIs()) {
+                        addNormalized(result, uri.toString());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<String> getRepositories(WebHook hook) {
+        List<String> urls = new ArrayList<>();
+        Repository repository = hook.getRepository();
+        if (repository != null) {
+            Collections.addAll(urls, repository.getUrl(), repository.getGitHttpUrl(), repository.getGitSshUrl());
+        }
+        Project project = null;
+        if (hook instanceof PushHook) {
+            project = ((PushHook) hook).getProject();
+        } else if (hook instanceof MergeRequestHook) {
+            MergeRequestObjectAttributes attributes = ((MergeRequestHook) hook).getObjectAttributes();
+            project = attributes == null ? null : attributes.getTarget();
+        } else if (hook instanceof NoteHook) {
+            project = ((NoteHook) hook).getProject();
+        }
+        if (project != null) {
+            Collections.addAll(urls, project.getUrl(), project.getHttpUrl(), project.getSshUrl());
+        }
+        Set<String> result = new HashSet<>();
+        for (String url : urls) {
+            addNormalized(result, url);
+        }
+        return result;
+    }
+
+    private Integer getProjectId(WebHook hook) {
+        if (hook instanceof PushHook) {
+            return ((PushHook) hook).getProjectId();
+        } else if (hook instanceof MergeRequestHook) {
+            MergeRequestObjectAttributes attributes = ((MergeRequestHook) hook).getObjectAttributes();
+            return attributes == null ? null : attributes.getTargetProjectId();
+        } else if (hook instanceof NoteHook) {
+            return ((NoteHook) hook).getObjectAttributes() == null ? null : ((NoteHook) hook).getObjectAttributes().getProjectId();
+        }
+        return null;
+    }
+
+    private void addNormalized(Set<String> result, String url) {
+        String normalized = normalize(url);
+        if (normalized != null) {
+            result.add(normalized);
+        }
+    }
+
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        @Override
+        public void onLoaded() {
+            INSTANCE.reindex();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (item instanceof Job<?, ?>) {
+                INSTANCE.update((Job<?, ?>) item);
+            }
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            if (item instanceof Job<?, ?>) {
+                INSTANCE.update((Job<?, ?>) item);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            INSTANCE.remove(item.getFullName());
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            INSTANCE.remove(oldFullName);
+            if (item instanceof Job<?, ?>) {
+                INSTANCE.update((Job<?, ?>) item);
+            }
+        }
+    }
+
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Job<?, ?>) {
+                INSTANCE.update((Job<?, ?>) o);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.dabsquared.gitlabjenkins.webhook.route;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.build.BuildWebHookAction;
+import com.dabsquared.gitlabjenkins.webhook.queue.JobLaneExecutor;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dispatches a single web hook to all the jobs the {@link GitLabJobIndex} found for it. The jobs are processed in
+ * parallel on the lanes of the {@link JobLaneExecutor}, so the hooks of a job keep their order.
+ */
+public class RoutedWebHookAction implements WebHookAction {
+
+    private static final Logger LOGGER = Logger.getLogger(RoutedWebHookAction.class.getName());
+
+    private final Map<String, BuildWebHookAction> actions;
+
+    public RoutedWebHookAction(Map<String, BuildWebHookAction> actions) {
+        this.actions = actions;
+    }
+
+    public void execute(StaplerResponse response) {
+        int dispatched = process().size();
+        try {
+            // only counts, the names of the jobs are not disclosed to the sender of the hook
+            JSONObject object = new JSONObject();
+            object.put("jobs", dispatched);
+            object.put("failed", actions.size() - dispatched);
+            response.setContentType("application/json");
+            PrintWriter writer = response.getWriter();
+            writer.write(object.toString());
+            writer.flush();
+            writer.close();
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    /**
+     * @return the full names of the jobs the hook has been dispatched to
+     */
+    public List<String> process() {
+        Map<String, Future<?>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, BuildWebHookAction> entry : actions.entrySet()) {
+            final BuildWebHookAction action = entry.getValue();
+            results.put(entry.getKey(), JobLaneExecutor.instance().submit(entry.getKey(), new Runnable() {
+                public void run() {
+                    try {
+                        action.process();
+                    } catch (org.kohsuke.stapler.HttpResponses.HttpResponseException e) {
+                        // the build actions answer with an HTTP response once they are done
+                    }
+                }
+            }));
+        }
+        List<String> jobs = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> result : results.entrySet()) {
+            try {
+                result.getValue().get();
+                jobs.add(result.getKey());
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Failed to dispatch web hook to " + result.getKey(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw HttpResponses.error(500, "Interrupted while dispatching web hook");
+            }
+        }
+        return jobs;
+    }
+}
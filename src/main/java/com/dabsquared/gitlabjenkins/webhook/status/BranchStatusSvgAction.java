@@ -0,0 +1,10 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import hudson.model.Job;
+
+public class BranchStatusSvgAction extends StatusSvgAction {
+    public BranchStatusSvgAction(Job<?, ?> project, String branchName) {
+        super(project, BuildUtil.getBuildByBranch(project, branchName));
+    }
+}
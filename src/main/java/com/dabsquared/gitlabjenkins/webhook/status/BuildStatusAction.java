@@ -24,8 +24,7 @@ abstract class BuildStatusAction implements WebHookAction {
     }
 
     public void execute(StaplerResponse response) {
-        SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(project);
-        if (!hasGitSCM(item)) {
+        if (!hasGitSCM(project)) {
             throw HttpResponses.error(409, "The project has no GitSCM configured");
         }
         writeStatusBody(response, build, getStatus(build));
@@ -33,7 +32,8 @@ abstract class BuildStatusAction implements WebHookAction {
 
     protected abstract void writeStatusBody(StaplerResponse response, Run<?, ?> build, BuildStatus status);
 
-    private boolean hasGitSCM(SCMTriggerItem item) {
+    static boolean hasGitSCM(Job<?, ?> project) {
+        SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(project);
         if (item != null) {
             for (SCM scm : item.getSCMs()) {
                 if (scm instanceof GitSCM) {
@@ -44,7 +44,7 @@ abstract class BuildStatusAction implements WebHookAction {
         return false;
     }
 
-    private BuildStatus getStatus(Run<?, ?> build) {
+    static BuildStatus getStatus(Run<?, ?> build) {
         if (build == null) {
             return BuildStatus.NOT_FOUND;
         } else if (build.isBuilding()) {
@@ -0,0 +1,208 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.webhook.status.BuildStatusAction.BuildStatus;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SCMListener;
+import hudson.plugins.git.util.BuildData;
+import hudson.scm.SCM;
+import hudson.scm.SCMRevisionState;
+import hudson.util.HttpResponses;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latest status changes of the builds of all jobs, which the status streams wait for. A build is reported as
+ * running once it has checked out its revision and again with its result once it's finished. The events are numbered
+ * in the order they happened. The number, prefixed with an epoch that changes whenever Jenkins restarts, serves as the
+ * token clients resume from.
+ */
+public final class BuildStatusEvents {
+
+    static final int CAPACITY = Integer.getInteger(BuildStatusEvents.class.getName() + ".capacity", 1000);
+
+    private static final BuildStatusEvents INSTANCE = new BuildStatusEvents();
+
+    private final Deque<Event> events = new ArrayDeque<>();
+    private final String epoch = Long.toString(new Random().nextLong() & Long.MAX_VALUE, 36);
+    private long lastId;
+
+    BuildStatusEvents() { }
+
+    public static BuildStatusEvents instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return the number of the latest event, or 0 if there hasn't been one yet
+     */
+    public synchronized long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @return the token clients resume from after the event with the given number
+     */
+    String toToken(long id) {
+        return epoch + '-' + id;
+    }
+
+    /**
+     * @return the event number of the token, -1 if there is none, or 0 if it has been issued before Jenkins restarted,
+     * as the numbers start anew and all the events since the restart are new to the client
+     */
+    long parseToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return -1;
+        }
+        String trimmed = token.trim();
+        int separator = trimmed.lastIndexOf('-');
+        try {
+            long id = Math.max(0, Long.parseLong(trimmed.substring(separator + 1)));
+            return separator > 0 && trimmed.substring(0, separator).equals(epoch) ? id : 0;
+        } catch (NumberFormatException e) {
+            throw HttpResponses.errorWithoutStack(400, "Invalid event token: " + token);
+        }
+    }
+
+    synchronized void publish(String jobName, int buildNumber, Collection<String> sha1s, BuildStatus status) {
+        events.addLast(new Event(++lastId, jobName, buildNumber, sha1s, status.getValue()));
+        if (events.size() > CAPACITY) {
+            events.removeFirst();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until there are events of the job newer than the given one.
+     *
+     * @param sha1 a full or abbreviated SHA1 to only wait for the builds of, or {@code null} for all builds of the job
+     * @return the matching events newer than {@code sinceId}, or an empty list if there haven't been any within the
+     * timeout
+     */
+    synchronized List<Event> await(String jobName, String sha1, long sinceId, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        String prefix = sha1 == null ? null : sha1.toLowerCase(Locale.ENGLISH);
+        while (true) {
+            List<Event> result = new ArrayList<>();
+            for (Iterator<Event> iterator = events.descendingIterator(); iterator.hasNext(); ) {
+                Event event = iterator.next();
+                if (event.id <= sinceId) {
+                    break;
+                }
+                if (event.matches(jobName, prefix)) {
+                    result.add(event);
+                }
+            }
+            long remaining = deadline - System.nanoTime();
+            if (!result.isEmpty() || remaining <= 0) {
+                Collections.reverse(result);
+                return result;
+            }
+            // none of the events so far matches, only the ones to come are of interest
+            sinceId = Math.max(sinceId, lastId);
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+    }
+
+    private void publish(Run<?, ?> build, BuildStatus status) {
+        publish(build.getParent().getFullName(), build.getNumber(), getSha1s(build), status);
+    }
+
+    private static Set<String> getSha1s(Run<?, ?> build) {
+        BuildData data = build.getAction(BuildData.class);
+        if (data == null || data.lastBuild == null) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        if (data.lastBuild.getMarked() != null) {
+            result.add(data.lastBuild.getMarked().getSha1String());
+        }
+        if (data.lastBuild.getRevision() != null) {
+            result.add(data.lastBuild.getRevision().getSha1String());
+        }
+        return result;
+    }
+
+    static final class Event {
+        private final long id;
+        private final String jobName;
+        private final int buildNumber;
+        private final Set<String> sha1s;
+        private final String status;
+
+        private Event(long id, String jobName, int buildNumber, Collection<String> sha1s, String status) {
+            this.id = id;
+            this.jobName = jobName;
+            this.buildNumber = buildNumber;
+            this.sha1s = new LinkedHashSet<>(sha1s);
+            this.status = status;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        int getBuildNumber() {
+            return buildNumber;
+        }
+
+        /**
+         * @return the SHA1 the build has been triggered for, or {@code null} if it hasn't checked out a revision
+         */
+        String getSha1() {
+            return sha1s.isEmpty() ? null : sha1s.iterator().next();
+        }
+
+        String getStatus() {
+            return status;
+        }
+
+        private boolean matches(String jobName, String sha1Prefix) {
+            if (!this.jobName.equals(jobName)) {
+                return false;
+            }
+            if (sha1Prefix == null) {
+                return true;
+            }
+            for (String sha1 : sha1s) {
+                if (sha1.startsWith(sha1Prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Extension
+    public static class SCMListenerImpl extends SCMListener {
+        @Override
+        public void onCheckout(Run<?, ?> build, SCM scm, FilePath workspace, TaskListener listener, File changelogFile,
+                               SCMRevisionState pollingBaseline) throws Exception {
+            INSTANCE.publish(build, BuildStatus.RUNNING);
+        }
+    }
+
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            INSTANCE.publish(run, BuildStatusAction.getStatus(run));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import hudson.model.Job;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll fallback of the {@link BuildStatusStreamAction}. A request with the token of an earlier answer in the
+ * {@code If-Changed-Since} header waits up to {@link #POLL_SECONDS} for the next status changes and answers them with
+ * a new token, or answers {@code 304 Not Modified} if there haven't been any. A request without token is answered
+ * right away with the current token. At most {@link #MAX_POLLS} requests wait at the same time, further ones are
+ * answered with {@code 503 Service Unavailable}.
+ */
+public class BuildStatusPollAction implements WebHookAction {
+
+    static final int MAX_POLLS = Integer.getInteger(BuildStatusPollAction.class.getName() + ".maxPolls", 100);
+    static final int POLL_SECONDS = Integer.getInteger(BuildStatusPollAction.class.getName() + ".pollSeconds", 30);
+
+    private static final AtomicInteger ACTIVE_POLLS = new AtomicInteger();
+
+    private final Job<?, ?> project;
+    private final String sha1;
+    private final long token;
+
+    public BuildStatusPollAction(Job<?, ?> project, String sha1, String token) {
+        this.project = project;
+        this.sha1 = sha1;
+        this.token = BuildStatusEvents.instance().parseToken(token);
+    }
+
+    public void execute(StaplerResponse response) {
+        if (ACTIVE_POLLS.incrementAndGet() > MAX_POLLS) {
+            ACTIVE_POLLS.decrementAndGet();
+            throw HttpResponses.errorWithoutStack(503, "Too many status polls, try again later");
+        }
+        try {
+            BuildStatusEvents events = BuildStatusEvents.instance();
+            long lastId = events.getLastId();
+            List<BuildStatusEvents.Event> changes = token < 0
+                ? Collections.<BuildStatusEvents.Event>emptyList()
+                : events.await(project.getFullName(), sha1, token, POLL_SECONDS, TimeUnit.SECONDS);
+            response.setHeader("Cache-Control", "no-cache, private");
+            if (token >= 0 && changes.isEmpty()) {
+                response.setHeader("X-Status-Token", events.toToken(token));
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            JSONArray array = new JSONArray();
+            for (BuildStatusEvents.Event event : changes) {
+                array.add(BuildStatusStreamAction.toJson(event));
+                lastId = event.getId();
+            }
+            JSONObject object = new JSONObject();
+            object.put("token", events.toToken(lastId));
+            object.put("events", array);
+            response.setHeader("X-Status-Token", events.toToken(lastId));
+            writeBody(response, object);
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw HttpResponses.error(503, "Interrupted while waiting for status changes");
+        } finally {
+            ACTIVE_POLLS.decrementAndGet();
+        }
+    }
+
+    private void writeBody(StaplerResponse response, JSONObject body) throws IOException {
+        response.setContentType("application/json");
+        PrintWriter writer = response.getWriter();
+        writer.write(body.toString());
+        writer.flush();
+        writer.close();
+    }
+}
@@ -0,0 +1,94 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import hudson.model.Job;
+import hudson.util.HttpResponses;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the status changes of the builds of a job, or of the builds of a single commit, as server-sent events.
+ * Each event carries the {@code id}, {@code sha} and {@code status} of a build like {@link StatusJsonAction} does.
+ *
+ * The stream ends after {@link #STREAM_SECONDS}; clients reconnect with the {@code Last-Event-ID} of the last event
+ * they have received and don't miss any event in between.
+ */
+public class BuildStatusStreamAction implements WebHookAction {
+
+    static final int MAX_STREAMS = Integer.getInteger(BuildStatusStreamAction.class.getName() + ".maxStreams", 100);
+    static final int STREAM_SECONDS = Integer.getInteger(BuildStatusStreamAction.class.getName() + ".streamSeconds", 300);
+    static final int KEEP_ALIVE_SECONDS = 15;
+
+    private static final Logger LOGGER = Logger.getLogger(BuildStatusStreamAction.class.getName());
+    private static final AtomicInteger ACTIVE_STREAMS = new AtomicInteger();
+
+    private final Job<?, ?> project;
+    private final String sha1;
+    private final long lastEventId;
+
+    public BuildStatusStreamAction(Job<?, ?> project, String sha1, String lastEventId) {
+        this.project = project;
+        this.sha1 = sha1;
+        this.lastEventId = BuildStatusEvents.instance().parseToken(lastEventId);
+    }
+
+    public void execute(StaplerResponse response) {
+        if (ACTIVE_STREAMS.incrementAndGet() > MAX_STREAMS) {
+            ACTIVE_STREAMS.decrementAndGet();
+            throw HttpResponses.errorWithoutStack(503, "Too many status streams, poll status/poll instead");
+        }
+        try {
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("X-Accel-Buffering", "no");
+            response.setContentType("text/event-stream;charset=UTF-8");
+            PrintWriter writer = response.getWriter();
+            writer.write("retry: 5000\n\n");
+            writer.flush();
+            stream(writer);
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ACTIVE_STREAMS.decrementAndGet();
+        }
+    }
+
+    private void stream(PrintWriter writer) throws InterruptedException {
+        BuildStatusEvents events = BuildStatusEvents.instance();
+        long lastId = lastEventId < 0 ? events.getLastId() : lastEventId;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STREAM_SECONDS);
+        while (System.nanoTime() < deadline) {
+            List<BuildStatusEvents.Event> changes = events.await(project.getFullName(), sha1, lastId, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            if (changes.isEmpty()) {
+                writer.write(": keep-alive\n\n");
+            }
+            for (BuildStatusEvents.Event event : changes) {
+                writer.write("id: " + events.toToken(event.getId()) + "\nevent: status\ndata: " + toJson(event) + "\n\n");
+                lastId = event.getId();
+            }
+            if (writer.checkError()) {
+                LOGGER.log(Level.FINE, "Status stream of {0} closed by the client", project.getFullName());
+                return;
+            }
+        }
+    }
+
+    static JSONObject toJson(BuildStatusEvents.Event event) {
+        JSONObject object = new JSONObject();
+        if (event.getSha1() != null) {
+            object.put("sha", event.getSha1());
+        }
+        object.put("id", event.getBuildNumber());
+        object.put("status", event.getStatus());
+        return object;
+    }
+}
@@ -0,0 +1,117 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.HttpResponses;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Answers the status of many commits and branches of a job with a single JSON array, in the order they have been
+ * asked for. The entries look like the ones of {@link StatusJsonAction}, with a {@code ref} instead of the {@code sha}
+ * for branches.
+ */
+public class BulkStatusJsonAction implements WebHookAction {
+
+    static final int MAX_ENTRIES = Integer.getInteger(BulkStatusJsonAction.class.getName() + ".maxEntries", 1000);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Job<?, ?> project;
+    private final Set<String> sha1s;
+    private final Set<String> refs;
+
+    public BulkStatusJsonAction(Job<?, ?> project, Collection<String> sha1s, Collection<String> refs) {
+        this.project = project;
+        this.sha1s = new LinkedHashSet<>(sha1s);
+        this.refs = new LinkedHashSet<>(refs);
+        if (this.sha1s.size() + this.refs.size() > MAX_ENTRIES) {
+            throw tooManyEntries();
+        }
+    }
+
+    /**
+     * Reads a {@code {"sha1s": [...], "refs": [...]}} query token by token, so a query with more than
+     * {@link #MAX_ENTRIES} entries is rejected as soon as the limit is passed instead of after reading all of it.
+     */
+    public static BulkStatusJsonAction fromQuery(Job<?, ?> project, Reader query) {
+        Set<String> sha1s = new LinkedHashSet<>();
+        Set<String> refs = new LinkedHashSet<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(query)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw HttpResponses.errorWithoutStack(400, "The status query must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && (field.equals("sha1s") || field.equals("refs"))) {
+                    readValues(parser, field.equals("sha1s") ? sha1s : refs, sha1s, refs);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw HttpResponses.errorWithoutStack(400, "Failed to parse the status query");
+        }
+        return new BulkStatusJsonAction(project, sha1s, refs);
+    }
+
+    private static void readValues(JsonParser parser, Set<String> values, Set<String> sha1s, Set<String> refs) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.VALUE_STRING) {
+                values.add(parser.getText());
+                if (sha1s.size() + refs.size() > MAX_ENTRIES) {
+                    throw tooManyEntries();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static RuntimeException tooManyEntries() {
+        return HttpResponses.errorWithoutStack(400, "At most " + MAX_ENTRIES + " commits and branches can be queried at once");
+    }
+
+    public void execute(StaplerResponse response) {
+        if (!BuildStatusAction.hasGitSCM(project)) {
+            throw HttpResponses.error(409, "The project has no GitSCM configured");
+        }
+        try {
+            response.setContentType("application/json");
+            JsonGenerator generator = JSON_FACTORY.createGenerator(response.getWriter());
+            generator.writeStartArray();
+            for (String sha1 : sha1s) {
+                writeStatus(generator, "sha", sha1, BuildUtil.getBuildBySHA1IncludingMergeBuilds(project, sha1));
+            }
+            for (String ref : refs) {
+                writeStatus(generator, "ref", ref, BuildUtil.getBuildByBranch(project, ref));
+            }
+            generator.writeEndArray();
+            generator.close();
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    private void writeStatus(JsonGenerator generator, String name, String value, Run<?, ?> build) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(name, value);
+        if (build != null) {
+            generator.writeNumberField("id", build.getNumber());
+        }
+        generator.writeStringField("status", BuildStatusAction.getStatus(build).getValue());
+        generator.writeEndObject();
+    }
+}
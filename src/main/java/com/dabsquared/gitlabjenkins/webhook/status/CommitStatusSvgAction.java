@@ -0,0 +1,10 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import hudson.model.Job;
+
+public class CommitStatusSvgAction extends StatusSvgAction {
+    public CommitStatusSvgAction(Job<?, ?> project, String sha1) {
+        super(project, BuildUtil.getBuildBySHA1WithoutMergeBuilds(project, sha1));
+    }
+}
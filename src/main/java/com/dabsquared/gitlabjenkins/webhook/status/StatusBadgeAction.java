@@ -0,0 +1,85 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.google.common.hash.Hashing;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.HttpResponses;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a status badge with an ETag of the job, build and status, so that clients can revalidate their copy with
+ * {@code If-None-Match}. Badges of finished builds may be cached for {@link #MAX_AGE} seconds, as only a new build
+ * changes them.
+ */
+abstract class StatusBadgeAction extends BuildStatusAction {
+
+    static final int MAX_AGE = Integer.getInteger(StatusBadgeAction.class.getName() + ".maxAge", 60);
+
+    private final Job<?, ?> project;
+
+    protected StatusBadgeAction(Job<?, ?> project, Run<?, ?> build) {
+        super(project, build);
+        this.project = project;
+    }
+
+    @Override
+    protected void writeStatusBody(StaplerResponse response, Run<?, ?> build, BuildStatus status) {
+        try {
+            String eTag = getETag(build, status);
+            response.setHeader("ETag", eTag);
+            if (build != null && !build.isBuilding()) {
+                response.setHeader("Cache-Control", "max-age=" + MAX_AGE + ", private");
+            } else {
+                response.setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
+                response.setHeader("Cache-Control", "no-cache, private");
+            }
+            response.setHeader("Content-Type", getContentType());
+            if (matches(getIfNoneMatch(), eTag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            byte[] badge = getBadge(build, status);
+            response.setContentLength(badge.length);
+            response.getOutputStream().write(badge);
+            response.flushBuffer();
+        } catch (Exception e) {
+            throw HttpResponses.error(500, "Could not generate response.");
+        }
+    }
+
+    protected abstract String getContentType();
+
+    protected abstract byte[] getBadge(Run<?, ?> build, BuildStatus status);
+
+    String getIfNoneMatch() {
+        StaplerRequest request = Stapler.getCurrentRequest();
+        return request == null ? null : request.getHeader("If-None-Match");
+    }
+
+    private String getETag(Run<?, ?> build, BuildStatus status) {
+        // a digest of the full name, as jobs with colliding String hash codes must not share their badges
+        return '"' + Hashing.sha1().hashString(project.getFullName(), UTF_8).toString()
+            + '-' + (build == null ? 0 : build.getNumber())
+            + '-' + status.name().toLowerCase(Locale.ENGLISH) + '"';
+    }
+
+    private boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.replaceFirst("^W/", "").equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
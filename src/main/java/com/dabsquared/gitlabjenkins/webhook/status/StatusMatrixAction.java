@@ -0,0 +1,91 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.util.BuildUtil;
+import com.dabsquared.gitlabjenkins.webhook.WebHookAction;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.HttpResponses;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Answers the status of a commit or branch in every job building a GitLab project, e.g. to show which pipelines
+ * passed for a commit. The jobs are taken from the job index and their builds from the build indexes, so neither the
+ * item tree nor the build history is walked. Only the jobs the caller may read are listed.
+ */
+public class StatusMatrixAction implements WebHookAction {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Collection<String> jobNames;
+    private final String sha1;
+    private final String ref;
+
+    public StatusMatrixAction(Collection<String> jobNames, String sha1, String ref) {
+        if ((sha1 == null) == (ref == null)) {
+            throw HttpResponses.errorWithoutStack(400, "Either a sha1 or a ref is required");
+        }
+        this.jobNames = new TreeSet<>(jobNames);
+        this.sha1 = sha1;
+        this.ref = ref;
+    }
+
+    public void execute(StaplerResponse response) {
+        List<Job<?, ?>> jobs = getJobs();
+        try {
+            response.setContentType("application/json");
+            JsonGenerator generator = JSON_FACTORY.createGenerator(response.getWriter());
+            generator.writeStartObject();
+            if (sha1 != null) {
+                generator.writeStringField("sha", sha1);
+            } else {
+                generator.writeStringField("ref", ref);
+            }
+            generator.writeArrayFieldStart("jobs");
+            for (Job<?, ?> job : jobs) {
+                Run<?, ?> build = getBuild(job);
+                generator.writeStartObject();
+                generator.writeStringField("job", job.getFullName());
+                if (build != null) {
+                    generator.writeNumberField("id", build.getNumber());
+                }
+                generator.writeStringField("status", BuildStatusAction.getStatus(build).getValue());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException e) {
+            throw HttpResponses.error(500, "Failed to generate response");
+        }
+    }
+
+    private List<Job<?, ?>> getJobs() {
+        List<Job<?, ?>> result = new ArrayList<>();
+        for (String jobName : jobNames) {
+            // resolved as the caller, so the jobs the caller may not read are left out
+            Job<?, ?> job = Jenkins.getInstance().getItemByFullName(jobName, Job.class);
+            if (job != null && job.hasPermission(Item.READ) && BuildStatusAction.hasGitSCM(job)) {
+                result.add(job);
+            }
+        }
+        return result;
+    }
+
+    private Run<?, ?> getBuild(Job<?, ?> job) {
+        if (sha1 != null) {
+            return BuildUtil.getBuildBySHA1IncludingMergeBuilds(job, sha1);
+        } else {
+            return BuildUtil.getBuildByBranch(job, ref);
+        }
+    }
+}
@@ -2,45 +2,62 @@ package com.dabsquared.gitlabjenkins.webhook.status;
 
 import hudson.model.Job;
 import hudson.model.Run;
-import hudson.util.HttpResponses;
 import org.apache.commons.io.IOUtils;
-import org.kohsuke.stapler.StaplerResponse;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * @author Robin Müller
  */
-class StatusPngAction extends BuildStatusAction {
+class StatusPngAction extends StatusBadgeAction {
+
+    private static final Map<BuildStatus, byte[]> STATUS_IMAGES = loadStatusImages();
+
     protected StatusPngAction(Job<?, ?> project, Run<?, ?> build) {
         super(project, build);
     }
 
     @Override
-    protected void writeStatusBody(StaplerResponse response, Run<?, ?> build, BuildStatus status) {
-        try {
-            response.setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
-            response.setHeader("Cache-Control", "no-cache, private");
-            response.setHeader("Content-Type", "image/png");
-            IOUtils.copy(getStatusImage(status), response.getOutputStream());
-            response.flushBuffer();
-        } catch (Exception e) {
-            throw HttpResponses.error(500, "Could not generate response.");
+    protected String getContentType() {
+        return "image/png";
+    }
+
+    @Override
+    protected byte[] getBadge(Run<?, ?> build, BuildStatus status) {
+        return STATUS_IMAGES.get(status);
+    }
+
+    private static Map<BuildStatus, byte[]> loadStatusImages() {
+        Map<BuildStatus, byte[]> result = new EnumMap<>(BuildStatus.class);
+        for (BuildStatus status : BuildStatus.values()) {
+            result.put(status, loadStatusImage(getStatusImageName(status)));
         }
+        return result;
     }
 
-    private InputStream getStatusImage(BuildStatus status) {
+    private static String getStatusImageName(BuildStatus status) {
         switch (status) {
             case RUNNING:
-                return getClass().getResourceAsStream("running.png");
+                return "running.png";
             case SUCCESS:
-                return getClass().getResourceAsStream("success.png");
+                return "success.png";
             case FAILED:
-                return getClass().getResourceAsStream("failed.png");
+                return "failed.png";
             case UNSTABLE:
-                return getClass().getResourceAsStream("unstable.png");
+                return "unstable.png";
             default:
-                return getClass().getResourceAsStream("unknown.png");
+                return "unknown.png";
+        }
+    }
+
+    private static byte[] loadStatusImage(String name) {
+        try (InputStream in = StatusPngAction.class.getResourceAsStream(name)) {
+            return IOUtils.toByteArray(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load status image " + name, e);
         }
     }
 }
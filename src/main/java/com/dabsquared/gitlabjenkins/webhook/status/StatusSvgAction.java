@@ -0,0 +1,91 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.apache.commons.lang.StringEscapeUtils;
+
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A status badge showing the number and duration of the build. Each badge is rendered once and kept in memory.
+ */
+class StatusSvgAction extends StatusBadgeAction {
+
+    private static final String LABEL = "build";
+    private static final String TEMPLATE = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%1$d\" height=\"20\">"
+        + "<linearGradient id=\"b\" x2=\"0\" y2=\"100%%\"><stop offset=\"0\" stop-color=\"#bbb\" stop-opacity=\".1\"/><stop offset=\"1\" stop-opacity=\".1\"/></linearGradient>"
+        + "<mask id=\"a\"><rect width=\"%1$d\" height=\"20\" rx=\"3\" fill=\"#fff\"/></mask>"
+        + "<g mask=\"url(#a)\"><path fill=\"#555\" d=\"M0 0h%2$dv20H0z\"/><path fill=\"%4$s\" d=\"M%2$d 0h%3$dv20H%2$dz\"/><path fill=\"url(#b)\" d=\"M0 0h%1$dv20H0z\"/></g>"
+        + "<g fill=\"#fff\" text-anchor=\"middle\" font-family=\"DejaVu Sans,Verdana,Geneva,sans-serif\" font-size=\"11\">"
+        + "<text x=\"%5$d\" y=\"15\" fill=\"#010101\" fill-opacity=\".3\">%6$s</text><text x=\"%5$d\" y=\"14\">%6$s</text>"
+        + "<text x=\"%7$d\" y=\"15\" fill=\"#010101\" fill-opacity=\".3\">%8$s</text><text x=\"%7$d\" y=\"14\">%8$s</text></g></svg>";
+    private static final Cache<String, byte[]> BADGES = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+    protected StatusSvgAction(Job<?, ?> project, Run<?, ?> build) {
+        super(project, build);
+    }
+
+    @Override
+    protected String getContentType() {
+        return "image/svg+xml;charset=utf-8";
+    }
+
+    @Override
+    protected byte[] getBadge(Run<?, ?> build, final BuildStatus status) {
+        final String message = getMessage(build, status);
+        try {
+            return BADGES.get(status.name() + ':' + message, new Callable<byte[]>() {
+                public byte[] call() {
+                    return render(status, message);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private String getMessage(Run<?, ?> build, BuildStatus status) {
+        String name = status.name().toLowerCase(Locale.ENGLISH).replace('_', ' ');
+        if (build == null) {
+            return name;
+        } else if (build.isBuilding()) {
+            return "#" + build.getNumber() + " " + name;
+        } else {
+            return "#" + build.getNumber() + " " + name + " in " + Util.getTimeSpanString(build.getDuration());
+        }
+    }
+
+    private static byte[] render(BuildStatus status, String message) {
+        int labelWidth = getTextWidth(LABEL);
+        int messageWidth = getTextWidth(message);
+        String svg = String.format(Locale.ENGLISH, TEMPLATE, labelWidth + messageWidth, labelWidth, messageWidth, getColor(status),
+                                   labelWidth / 2, LABEL, labelWidth + messageWidth / 2, StringEscapeUtils.escapeXml(message));
+        return svg.getBytes(Charset.forName("UTF-8"));
+    }
+
+    private static int getTextWidth(String text) {
+        // roughly the average advance of an 11px sans-serif font plus the padding on both sides
+        return text.length() * 7 + 10;
+    }
+
+    private static String getColor(BuildStatus status) {
+        switch (status) {
+            case RUNNING:
+                return "#007ec6";
+            case SUCCESS:
+                return "#4c1";
+            case FAILED:
+                return "#e05d44";
+            case UNSTABLE:
+                return "#dfb317";
+            default:
+                return "#9f9f9f";
+        }
+    }
+}
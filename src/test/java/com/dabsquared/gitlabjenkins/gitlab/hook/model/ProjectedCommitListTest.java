@@ -0,0 +1,78 @@
+package com.dabsquared.gitlabjenkins.gitlab.hook.model;
+
+import com.dabsquared.gitlabjenkins.util.JsonUtil;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ProjectedCommitListTest {
+
+    private static final String SHA_1 = "b6568db1bc1dcd7f8b4d5a946b0b91f9dacd7327";
+    private static final String SHA_2 = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+    private static final String SHA_3 = "4bf0fcd937085dc2f69dcbe31f2ef960ec9ca7eb";
+
+    @Test
+    public void read_onlyLastCommitFullyBound() {
+        PushHook pushHook = JsonUtil.read("{\"ref\": \"refs/heads/master\", \"commits\": ["
+                                          + commitJson(SHA_1, "first") + ", "
+                                          + commitJson(SHA_2, "second") + ", "
+                                          + commitJson(SHA_3, "third [ci-skip]") + "]}", PushHook.class);
+
+        List<Commit> commits = pushHook.getCommits();
+        assertThat(commits.size(), is(3));
+        assertThat(commits.get(0).getId(), is(SHA_1));
+        assertThat(commits.get(0).getMessage(), nullValue());
+        assertThat(commits.get(1).getId(), is(SHA_2));
+        assertThat(commits.get(2).getId(), is(SHA_3));
+        assertThat(commits.get(2).getMessage(), is("third [ci-skip]"));
+        assertThat(commits.get(2).getAuthor().getName(), is("test"));
+    }
+
+    @Test
+    public void read_skipsUnknownFields() {
+        PushHook pushHook = JsonUtil.read("{\"commits\": [{\"stats\": {\"id\": \"nested\", \"files\": [{\"id\": 1}]}, \"id\": \"" + SHA_1 + "\"}, "
+                                          + "{\"id\": \"" + SHA_2 + "\", \"message\": null, \"added\": [\"a\", null], \"labels\": [[1], {}]}], "
+                                          + "\"ref\": \"refs/heads/master\"}", PushHook.class);
+
+        List<Commit> commits = pushHook.getCommits();
+        assertThat(commits.size(), is(2));
+        assertThat(commits.get(0).getId(), is(SHA_1));
+        assertThat(commits.get(1).getId(), is(SHA_2));
+        assertThat(commits.get(1).getMessage(), nullValue());
+        assertThat(commits.get(1).getAdded().size(), is(2));
+        assertThat(pushHook.getRef(), is("refs/heads/master"));
+    }
+
+    @Test
+    public void read_emptyCommits() {
+        PushHook pushHook = JsonUtil.read("{\"commits\": []}", PushHook.class);
+
+        assertThat(pushHook.getCommits().isEmpty(), is(true));
+    }
+
+    @Test
+    public void addCompact_capKeepsNewestIds() {
+        ProjectedCommitList commits = new ProjectedCommitList(2);
+        commits.addCompact(SHA_1);
+        commits.addCompact(SHA_2);
+        commits.addCompact("not-a-sha");
+        Commit last = new Commit();
+        last.setId(SHA_3);
+        commits.setLast(last);
+
+        assertThat(commits.size(), is(3));
+        assertThat(commits.getSkippedCount(), is(1));
+        assertThat(commits.get(0).getId(), is(SHA_2));
+        assertThat(commits.get(1).getId(), is("not-a-sha"));
+        assertThat(commits.get(2).getId(), is(SHA_3));
+    }
+
+    private String commitJson(String id, String message) {
+        return "{\"id\": \"" + id + "\", \"message\": \"" + message + "\", \"timestamp\": \"2015-02-08T13:35:54+01:00\", "
+               + "\"author\": {\"name\": \"test\", \"email\": \"test@example.com\"}, \"added\": [\"a\"], \"modified\": [], \"removed\": []}";
+    }
+}
@@ -0,0 +1,48 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class JobBranchIndexTest {
+
+    @Test
+    public void find() {
+        JobBranchIndex index = new JobBranchIndex();
+        index.add(1, Arrays.asList("origin/master", "origin/feature/foo"));
+        index.add(3, Collections.singleton("origin/feature/foo"));
+        index.add(2, Collections.singleton("origin/master"));
+
+        assertThat(index.find("master"), is(2));
+        assertThat(index.find("feature/foo"), is(3));
+        assertThat(index.find("foo"), is(3));
+        assertThat(index.find("origin/master"), nullValue());
+        assertThat(index.find("develop"), nullValue());
+    }
+
+    @Test
+    public void contains() {
+        JobBranchIndex index = new JobBranchIndex();
+        index.add(1, Collections.singleton("origin/master"));
+        index.add(2, Collections.singleton("origin/master"));
+
+        assertThat(index.contains(2), is(true));
+        assertThat(index.contains(1), is(false));
+    }
+
+    @Test
+    public void contains_latestOfOtherBranch() {
+        JobBranchIndex index = new JobBranchIndex();
+        index.add(1, Arrays.asList("origin/master", "origin/develop"));
+        index.add(2, Collections.singleton("origin/master"));
+
+        assertThat(index.contains(1), is(true));
+        index.add(3, Collections.singleton("origin/develop"));
+        assertThat(index.contains(1), is(false));
+    }
+}
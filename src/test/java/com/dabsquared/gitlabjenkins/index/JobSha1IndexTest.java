@@ -0,0 +1,103 @@
+package com.dabsquared.gitlabjenkins.index;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+
+public class JobSha1IndexTest {
+
+    private static final String SHA1_A = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+    private static final String SHA1_B = "da15ffff6d4f094c3e6c9ef40349f7d38b5d27d7";
+    private static final String SHA1_C = "95790bf891e76fee5e1747ab589903a6a1f80f22";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void find() throws IOException {
+        JobSha1Index index = JobSha1Index.load(new File(tmp.getRoot(), "index.bin"));
+        index.add(1, Collections.singleton(SHA1_A));
+        index.add(2, Arrays.asList(SHA1_C, SHA1_B));
+        index.add(3, Collections.singleton(SHA1_A));
+
+        assertThat(index.find(SHA1_A), contains(3, 1));
+        assertThat(index.find(SHA1_A.toUpperCase()), contains(3, 1));
+        assertThat(index.find("da15"), contains(3, 2, 1));
+        assertThat(index.find("da156"), contains(3, 1));
+        assertThat(index.find("9"), contains(2));
+        assertThat(index.find("0000000000000000000000000000000000000000"), empty());
+        assertThat(index.find("not-a-sha1"), empty());
+        assertThat(index.find(null), empty());
+    }
+
+    @Test
+    public void addAll() throws IOException {
+        JobSha1Index index = JobSha1Index.load(new File(tmp.getRoot(), "index.bin"));
+        index.add(1, Collections.singleton(SHA1_A));
+        Map<Integer, List<String>> sha1sByNumber = new LinkedHashMap<>();
+        sha1sByNumber.put(3, Collections.singletonList(SHA1_A));
+        sha1sByNumber.put(2, Arrays.asList(SHA1_C, SHA1_B));
+        sha1sByNumber.put(1, Collections.singletonList(SHA1_A.toUpperCase()));
+
+        index.addAll(sha1sByNumber);
+
+        assertThat(index.size(), is(4));
+        assertThat(index.find(SHA1_A), contains(3, 1));
+        assertThat(index.find("da15"), contains(3, 2, 1));
+        assertThat(index.find(SHA1_C), contains(2));
+        index.add(4, Collections.singleton(SHA1_C));
+        assertThat(index.find(SHA1_C), contains(4, 2));
+    }
+
+    @Test
+    public void remove() throws IOException {
+        JobSha1Index index = JobSha1Index.load(new File(tmp.getRoot(), "index.bin"));
+        index.add(1, Collections.singleton(SHA1_A));
+        index.add(2, Collections.singleton(SHA1_A));
+
+        index.remove(2);
+
+        assertThat(index.find(SHA1_A), contains(1));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        File file = new File(tmp.getRoot(), "index.bin");
+        JobSha1Index index = JobSha1Index.load(file);
+        index.add(1, Arrays.asList(SHA1_A, SHA1_C));
+        index.add(2, Collections.singleton(SHA1_B));
+        index.setWatermark(2);
+        index.save();
+
+        JobSha1Index loaded = JobSha1Index.load(file);
+
+        assertThat(loaded.getWatermark(), is(2));
+        assertThat(loaded.size(), is(3));
+        assertThat(loaded.find("da15"), contains(2, 1));
+        assertThat(loaded.find(SHA1_C), contains(1));
+    }
+
+    @Test
+    public void load_corruptFile() throws IOException {
+        File file = tmp.newFile("index.bin");
+
+        JobSha1Index index = JobSha1Index.load(file);
+
+        assertThat(index.getWatermark(), is(0));
+        assertThat(index.size(), is(0));
+    }
+}
@@ -0,0 +1,95 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveQuietPeriodTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+    private final AdaptiveQuietPeriod quietPeriod = new AdaptiveQuietPeriod(ticker);
+
+    @Before
+    public void setup() {
+        quietPeriod.configure(true, 5, 60);
+    }
+
+    @Test
+    public void singlePush() {
+        assertThat(quietPeriod.record("1:master", "a1"), is(5));
+    }
+
+    @Test
+    public void burst() {
+        quietPeriod.record("1:bot", "a1");
+        ticker.advance(10);
+        assertThat(quietPeriod.record("1:bot", "a2"), is(20));
+        ticker.advance(4);
+        assertThat(quietPeriod.record("1:bot", "a3"), is(14));
+    }
+
+    @Test
+    public void burst_boundedByMax() {
+        quietPeriod.record("1:bot", "a1");
+        ticker.advance(50);
+        assertThat(quietPeriod.record("1:bot", "a2"), is(60));
+    }
+
+    @Test
+    public void slowPushes() {
+        quietPeriod.record("1:feature", "a1");
+        ticker.advance(120);
+        assertThat(quietPeriod.record("1:feature", "a2"), is(5));
+    }
+
+    @Test
+    public void sameCommitCountedOnce() {
+        quietPeriod.record("1:master", "a1");
+        ticker.advance(2);
+        assertThat(quietPeriod.record("1:master", "a1"), is(5));
+    }
+
+    @Test
+    public void pushesExpire() {
+        quietPeriod.record("1:bot", "a1");
+        ticker.advance(10);
+        quietPeriod.record("1:bot", "a2");
+        ticker.advance(AdaptiveQuietPeriod.WINDOW_SECONDS);
+        assertThat(quietPeriod.record("1:bot", "a3"), is(5));
+    }
+
+    @Test
+    public void getEstimates() {
+        quietPeriod.record("1:master", "a1");
+        quietPeriod.record("1:bot", "b1");
+        ticker.advance(6);
+        quietPeriod.record("1:bot", "b2");
+
+        List<AdaptiveQuietPeriod.Estimate> estimates = quietPeriod.getEstimates();
+
+        assertThat(estimates.size(), is(1));
+        assertThat(estimates.get(0).getRef(), is("1:bot"));
+        assertThat(estimates.get(0).getPushes(), is(2));
+        assertThat(estimates.get(0).getMeanInterval(), is(6L));
+        assertThat(estimates.get(0).getQuietPeriod(), is(12));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        private void advance(long seconds) {
+            nanos += TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.CauseData;
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import hudson.Util;
+import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.dabsquared.gitlabjenkins.cause.CauseDataBuilder.causeData;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BuildCoalescerTest {
+
+    private static final String BEFORE = "0000000000000000000000000000000000000000";
+    private static final String SHA1 = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+    private static final String OTHER_SHA1 = "95790bf891e76fee5e1747ab589903a6a1f80f22";
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @After
+    public void reset() {
+        BuildCoalescer.instance().setWindow(0);
+        jenkins.getInstance().getQueue().clear();
+    }
+
+    @Test
+    public void schedule_foldsHooksOfSameRef() throws IOException {
+        BuildCoalescer coalescer = BuildCoalescer.instance();
+        coalescer.setWindow(3600);
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        CauseData first = causeData("master", BEFORE, SHA1);
+        CauseData second = causeData("master", SHA1, OTHER_SHA1);
+        long folded = coalescer.getFoldedCount();
+
+        coalescer.schedule(testProject, first, new FoldableRevisionParameterAction(SHA1, null), 3600);
+        coalescer.schedule(testProject, second, new FoldableRevisionParameterAction(OTHER_SHA1, null), 3600);
+        coalescer.flush(coalescer.getKey(testProject, second));
+
+        assertThat(coalescer.getFoldedCount(), is(folded + 1));
+        List<Queue.Item> items = jenkins.getInstance().getQueue().getItems(testProject);
+        assertThat(items.size(), is(1));
+        assertThat(items.get(0).getAction(FoldableRevisionParameterAction.class).commit, is(OTHER_SHA1));
+        List<GitLabWebHookCause> causes = Util.filter(items.get(0).getCauses(), GitLabWebHookCause.class);
+        assertThat(causes.size(), is(1));
+        assertThat(causes.get(0).getData().getLastCommit(), is(OTHER_SHA1));
+        assertThat(causes.get(0).getData().getBefore(), is(BEFORE));
+    }
+
+    @Test
+    public void schedule_keepsOtherRefsApart() throws IOException {
+        BuildCoalescer coalescer = BuildCoalescer.instance();
+        coalescer.setWindow(3600);
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        CauseData master = causeData("master", BEFORE, SHA1);
+        CauseData develop = causeData("develop", BEFORE, OTHER_SHA1);
+        long folded = coalescer.getFoldedCount();
+
+        coalescer.schedule(testProject, master, new FoldableRevisionParameterAction(SHA1, null), 3600);
+        coalescer.schedule(testProject, develop, new FoldableRevisionParameterAction(OTHER_SHA1, null), 3600);
+        coalescer.flush(coalescer.getKey(testProject, master));
+        coalescer.flush(coalescer.getKey(testProject, develop));
+
+        assertThat(coalescer.getFoldedCount(), is(folded));
+        assertThat(jenkins.getInstance().getQueue().getItems(testProject).size(), is(2));
+    }
+
+    static CauseData causeData(String branch, String before, String lastCommit) {
+        return causeData()
+            .withActionType(CauseData.ActionType.PUSH)
+            .withSourceProjectId(1)
+            .withTargetProjectId(1)
+            .withBranch(branch)
+            .withSourceBranch(branch)
+            .withUserName("")
+            .withSourceRepoName("test")
+            .withSourceNamespace("test-namespace")
+            .withSourceRepoSshUrl("git@gitlab.org:test.git")
+            .withSourceRepoHttpUrl("https://gitlab.org/test.git")
+            .withMergeRequestTitle("")
+            .withTargetBranch(branch)
+            .withTargetRepoName("test")
+            .withTargetNamespace("test-namespace")
+            .withTargetRepoSshUrl("git@gitlab.org:test.git")
+            .withTargetRepoHttpUrl("https://gitlab.org/test.git")
+            .withTriggeredByUser("test")
+            .withBefore(before)
+            .withLastCommit(lastCommit)
+            .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.cause.GitLabWebHookCause;
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static com.dabsquared.gitlabjenkins.trigger.handler.BuildCoalescerTest.causeData;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FoldableRevisionParameterActionTest {
+
+    private static final String BEFORE = "0000000000000000000000000000000000000000";
+    private static final String SHA1 = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+    private static final String OTHER_SHA1 = "95790bf891e76fee5e1747ab589903a6a1f80f22";
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @After
+    public void clearQueue() {
+        jenkins.getInstance().getQueue().clear();
+    }
+
+    @Test
+    public void shouldSchedule_sameRef() {
+        FoldableRevisionParameterAction queued = new FoldableRevisionParameterAction(SHA1, null).withFoldKey("job#push#1:master->master");
+        FoldableRevisionParameterAction newer = new FoldableRevisionParameterAction(OTHER_SHA1, null).withFoldKey("job#push#1:master->master");
+
+        assertThat(queued.shouldSchedule(Collections.<Action>singletonList(newer)), is(false));
+        assertThat(newer.shouldSchedule(Collections.<Action>singletonList(queued)), is(false));
+    }
+
+    @Test
+    public void shouldSchedule_otherRef() {
+        FoldableRevisionParameterAction queued = new FoldableRevisionParameterAction(SHA1, null).withFoldKey("job#push#1:master->master");
+        FoldableRevisionParameterAction newer = new FoldableRevisionParameterAction(OTHER_SHA1, null).withFoldKey("job#push#1:develop->develop");
+
+        assertThat(queued.shouldSchedule(Collections.<Action>singletonList(newer)), is(true));
+        assertThat(newer.shouldSchedule(Collections.<Action>singletonList(queued)), is(true));
+    }
+
+    @Test
+    public void shouldSchedule_withoutFoldKey() {
+        FoldableRevisionParameterAction queued = new FoldableRevisionParameterAction(SHA1, null);
+
+        assertThat(queued.shouldSchedule(Collections.<Action>singletonList(new FoldableRevisionParameterAction(OTHER_SHA1, null))), is(true));
+        assertThat(queued.shouldSchedule(Collections.<Action>singletonList(new FoldableRevisionParameterAction(SHA1, null))), is(false));
+    }
+
+    @Test
+    public void foldIntoExisting_sameCommit() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        long folded = BuildCoalescer.instance().getQueueFoldedCount();
+
+        BuildCoalescer.instance().schedule(testProject, causeData("master", BEFORE, SHA1), new FoldableRevisionParameterAction(SHA1, null), 3600);
+        BuildCoalescer.instance().schedule(testProject, causeData("master", SHA1, SHA1), new FoldableRevisionParameterAction(SHA1, null), 3600);
+
+        assertThat(BuildCoalescer.instance().getQueueFoldedCount(), is(folded + 1));
+        assertFolded(testProject, SHA1);
+    }
+
+    @Test
+    public void foldIntoExisting_otherCommit() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        long folded = BuildCoalescer.instance().getQueueFoldedCount();
+
+        BuildCoalescer.instance().schedule(testProject, causeData("master", BEFORE, SHA1), new FoldableRevisionParameterAction(SHA1, null), 3600);
+        BuildCoalescer.instance().schedule(testProject, causeData("master", SHA1, OTHER_SHA1), new FoldableRevisionParameterAction(OTHER_SHA1, null), 3600);
+
+        assertThat(BuildCoalescer.instance().getQueueFoldedCount(), is(folded + 1));
+        assertFolded(testProject, OTHER_SHA1);
+    }
+
+    private void assertFolded(FreeStyleProject testProject, String commit) {
+        List<Queue.Item> items = jenkins.getInstance().getQueue().getItems(testProject);
+        assertThat(items.size(), is(1));
+        assertThat(items.get(0).getAction(FoldableRevisionParameterAction.class).commit, is(commit));
+        List<GitLabWebHookCause> causes = Util.filter(items.get(0).getCauses(), GitLabWebHookCause.class);
+        assertThat(causes.size(), is(1));
+        assertThat(causes.get(0).getData().getLastCommit(), is(commit));
+        assertThat(causes.get(0).getData().getBefore(), is(BEFORE));
+    }
+}
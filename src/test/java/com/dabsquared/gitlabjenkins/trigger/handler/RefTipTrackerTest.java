@@ -0,0 +1,101 @@
+package com.dabsquared.gitlabjenkins.trigger.handler;
+
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.MergeRequestHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import hudson.model.Job;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.CommitBuilder.commit;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestHookBuilder.mergeRequestHook;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.MergeRequestObjectAttributesBuilder.mergeRequestObjectAttributes;
+import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.PushHookBuilder.pushHook;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RefTipTrackerTest {
+
+    private final RefTipTracker tracker = RefTipTracker.instance();
+
+    @Test
+    public void push_outOfOrder() {
+        Job<?, ?> job = job("push_outOfOrder");
+
+        assertThat(tracker.isStale(job, push("a0", "a2")), is(false));
+        assertThat(tracker.isStale(job, push("a0", "a1")), is(true));
+        assertThat(tracker.isStale(job, push("a2", "a3")), is(false));
+    }
+
+    @Test
+    public void push_chainedOutOfOrder() {
+        Job<?, ?> job = job("push_chainedOutOfOrder");
+
+        assertThat(tracker.isStale(job, push("a1", "a2")), is(false));
+        assertThat(tracker.isStale(job, push("a0", "a1")), is(true));
+        assertThat(tracker.isCurrent(job, push("a1", "a2")), is(true));
+    }
+
+    @Test
+    public void push_forcePushToSupersededCommit() {
+        Job<?, ?> job = job("push_forcePushToSupersededCommit");
+
+        assertThat(tracker.isStale(job, push("a0", "a1")), is(false));
+        assertThat(tracker.isStale(job, push("a1", "a2")), is(false));
+        assertThat(tracker.isStale(job, push("a2", "a1")), is(false));
+    }
+
+    @Test
+    public void push_otherJob() {
+        assertThat(tracker.isStale(job("push_otherJob_1"), push("a0", "a2")), is(false));
+        assertThat(tracker.isStale(job("push_otherJob_2"), push("a0", "a1")), is(false));
+    }
+
+    @Test
+    public void mergeRequest_outOfOrder() {
+        Job<?, ?> job = job("mergeRequest_outOfOrder");
+
+        assertThat(tracker.isStale(job, mergeRequest("c1", new Date(1000))), is(false));
+        assertThat(tracker.isStale(job, mergeRequest("c2", new Date(2000))), is(false));
+        assertThat(tracker.isStale(job, mergeRequest("c1", new Date(1000))), is(true));
+        assertThat(tracker.isStale(job, mergeRequest("c1", new Date(3000))), is(false));
+    }
+
+    @Test
+    public void isCurrent() {
+        Job<?, ?> job = job("isCurrent");
+
+        assertThat(tracker.isCurrent(job, push("a0", "a1")), is(false));
+        tracker.isStale(job, push("a0", "a2"));
+        tracker.isStale(job, push("a0", "a1"));
+        assertThat(tracker.isCurrent(job, push("a0", "a1")), is(false));
+        assertThat(tracker.isCurrent(job, push("a0", "a2")), is(true));
+
+        tracker.isStale(job, mergeRequest("c1", new Date(1000)));
+        assertThat(tracker.isCurrent(job, mergeRequest("c1", new Date(1000))), is(true));
+        assertThat(tracker.isCurrent(job, mergeRequest("c0", new Date(500))), is(false));
+    }
+
+    private Job<?, ?> job(String name) {
+        Job<?, ?> job = mock(Job.class);
+        when(job.getFullName()).thenReturn(name);
+        return job;
+    }
+
+    private PushHook push(String before, String after) {
+        return pushHook().withProjectId(1).withRef("refs/heads/master").withBefore(before).withAfter(after).build();
+    }
+
+    private MergeRequestHook mergeRequest(String lastCommit, Date updatedAt) {
+        return mergeRequestHook()
+            .withObjectAttributes(mergeRequestObjectAttributes()
+                .withTargetProjectId(1)
+                .withIid(1)
+                .withLastCommit(commit().withId(lastCommit).build())
+                .withUpdatedAt(updatedAt)
+                .build())
+            .build();
+    }
+}
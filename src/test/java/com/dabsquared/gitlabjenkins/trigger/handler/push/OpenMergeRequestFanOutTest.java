@@ -0,0 +1,95 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class OpenMergeRequestFanOutTest {
+
+    private final OpenMergeRequestFanOut fanOut = OpenMergeRequestFanOut.instance();
+
+    @Test
+    public void submit_coalescesWaitingWaves() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(OpenMergeRequestFanOut.THREADS);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final List<String> waves = new CopyOnWriteArrayList<>();
+        long coalesced = fanOut.getCoalescedCount();
+        for (int i = 0; i < OpenMergeRequestFanOut.THREADS; i++) {
+            fanOut.submit("submit_coalescesWaitingWaves#blocker" + i, new Runnable() {
+                public void run() {
+                    blocked.countDown();
+                    await(release);
+                }
+            });
+        }
+        assertThat(blocked.await(10, TimeUnit.SECONDS), is(true));
+
+        fanOut.submit("submit_coalescesWaitingWaves", wave(waves, "first", null));
+        fanOut.submit("submit_coalescesWaitingWaves", wave(waves, "second", null));
+        fanOut.submit("submit_coalescesWaitingWaves", wave(waves, "third", done));
+        release.countDown();
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(waves, contains("third"));
+        assertThat(fanOut.getCoalescedCount(), is(coalesced + 2));
+    }
+
+    @Test
+    public void acquire_limitsEachProject() {
+        assumeTrue(OpenMergeRequestFanOut.PROJECT_RATE > 0);
+        Integer projectId = 4711;
+        long start = System.nanoTime();
+        for (int i = 0; i <= OpenMergeRequestFanOut.PROJECT_RATE; i++) {
+            fanOut.acquire(projectId);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // the first permit is free, the others are spread over one second
+        assertThat(elapsed >= 900, is(true));
+        assertThat(fanOut.getRateLimiter(projectId), sameInstance(fanOut.getRateLimiter(projectId)));
+        assertThat(fanOut.getRateLimiter(projectId).getRate(), is((double) OpenMergeRequestFanOut.PROJECT_RATE));
+    }
+
+    @Test
+    public void acquire_keepsProjectsApart() {
+        assumeTrue(OpenMergeRequestFanOut.PROJECT_RATE > 0);
+        long start = System.nanoTime();
+        for (int projectId = 4712; projectId < 4712 + OpenMergeRequestFanOut.PROJECT_RATE; projectId++) {
+            fanOut.acquire(projectId);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(elapsed < 500, is(true));
+        assertThat(fanOut.getRateLimiter(4712), not(sameInstance(fanOut.getRateLimiter(4713))));
+    }
+
+    private Runnable wave(final List<String> waves, final String name, final CountDownLatch done) {
+        return new Runnable() {
+            public void run() {
+                waves.add(name);
+                if (done != null) {
+                    done.countDown();
+                }
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.dabsquared.gitlabjenkins.trigger.handler.push;
+
+import com.dabsquared.gitlabjenkins.gitlab.api.model.MergeRequest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class OpenMergeRequestPushHookTriggerHandlerTest {
+
+    @Test
+    public void sortByActivity_mostRecentlyUpdatedFirst() {
+        List<MergeRequest> mergeRequests = new ArrayList<>(Arrays.asList(
+            mergeRequest(1, new Date(1000)),
+            mergeRequest(2, null),
+            mergeRequest(3, new Date(3000)),
+            mergeRequest(4, new Date(2000))));
+
+        OpenMergeRequestPushHookTriggerHandler.sortByActivity(mergeRequests);
+
+        assertThat(iids(mergeRequests), contains(3, 4, 1, 2));
+    }
+
+    private static MergeRequest mergeRequest(Integer iid, Date updatedAt) {
+        MergeRequest mergeRequest = new MergeRequest();
+        mergeRequest.setIid(iid);
+        mergeRequest.setUpdatedAt(updatedAt);
+        return mergeRequest;
+    }
+
+    private static List<Integer> iids(List<MergeRequest> mergeRequests) {
+        List<Integer> result = new ArrayList<>();
+        for (MergeRequest mergeRequest : mergeRequests) {
+            result.add(mergeRequest.getIid());
+        }
+        return result;
+    }
+}
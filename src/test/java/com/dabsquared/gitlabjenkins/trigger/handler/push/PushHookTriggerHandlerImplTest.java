@@ -1,6 +1,8 @@
 package com.dabsquared.gitlabjenkins.trigger.handler.push;
 
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
 import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
+import com.dabsquared.gitlabjenkins.trigger.handler.BuildAvoidance;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
@@ -24,6 +26,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 
+import static com.dabsquared.gitlabjenkins.builder.generated.GitLabPushTriggerBuilder.gitLabPushTrigger;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.CommitBuilder.commit;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.ProjectBuilder.project;
 import static com.dabsquared.gitlabjenkins.gitlab.hook.model.builder.generated.PushHookBuilder.pushHook;
@@ -115,4 +118,51 @@ public class PushHookTriggerHandlerImplTest {
         buildTriggered.block(10000);
         assertThat(buildTriggered.isSignaled(), is(true));
     }
+
+    @Test
+    public void push_skipBuiltCommit() throws Exception {
+        Git.init().setDirectory(tmp.getRoot()).call();
+        tmp.newFile("test");
+        Git git = Git.open(tmp.getRoot());
+        git.add().addFilepattern("test");
+        RevCommit commit = git.commit().setMessage("test").call();
+        String repositoryUrl = tmp.getRoot().toURI().toString();
+
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.setScm(new GitSCM(repositoryUrl));
+        project.addTrigger(gitLabPushTrigger().withTriggerOnPush(true).withSkipBuiltCommits(true).withBranchFilterType(BranchFilterType.All).build());
+        project.setQuietPeriod(0);
+        long avoided = BuildAvoidance.instance().getAvoidedCount();
+
+        pushHookTriggerHandler.handle(project, push(commit.name(), "refs/heads/feature"), true,
+                                      newBranchFilter(branchFilterConfig().build(BranchFilterType.All)));
+        jenkins.waitUntilNoActivity();
+        pushHookTriggerHandler.handle(project, push(commit.name(), "refs/heads/master"), true,
+                                      newBranchFilter(branchFilterConfig().build(BranchFilterType.All)));
+        jenkins.waitUntilNoActivity();
+
+        assertThat(project.getBuilds().size(), is(1));
+        assertThat(BuildAvoidance.instance().getAvoidedCount(), is(avoided + 1));
+    }
+
+    private PushHook push(String after, String ref) {
+        return pushHook()
+                .withBefore("0000000000000000000000000000000000000000")
+                .withProjectId(1)
+                .withUserName("test")
+                .withRepository(repository()
+                        .withName("test")
+                        .withHomepage("https://gitlab.org/test")
+                        .withUrl("git@gitlab.org:test.git")
+                        .withGitSshUrl("git@gitlab.org:test.git")
+                        .withGitHttpUrl("https://gitlab.org/test.git")
+                        .build())
+                .withProject(project()
+                        .withNamespace("test-namespace")
+                        .withWebUrl("https://gitlab.org/test")
+                        .build())
+                .withAfter(after)
+                .withRef(ref)
+                .build();
+    }
 }
@@ -0,0 +1,83 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import hudson.model.Queue;
+import hudson.model.queue.QueueSorter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GitLabQueueSorterTest {
+
+    private final Queue.BuildableItem push1 = item(PriorityClass.PUSH);
+    private final Queue.BuildableItem openMergeRequest = item(PriorityClass.OPEN_MERGE_REQUEST);
+    private final Queue.BuildableItem other = item(null);
+    private final Queue.BuildableItem push2 = item(PriorityClass.PUSH);
+    private final Queue.BuildableItem mergeRequest = item(PriorityClass.MERGE_REQUEST);
+    private final Queue.BuildableItem note = item(PriorityClass.NOTE);
+
+    @After
+    public void reset() {
+        BuildPriorities.instance().configure(false, 1, 1, 3, 5, 0);
+    }
+
+    @Test
+    public void sortBuildableItems() {
+        BuildPriorities.instance().configure(true, 1, 1, 3, 5, 0);
+
+        List<Queue.BuildableItem> buildables = sort(push1, openMergeRequest, other, push2, mergeRequest, note);
+
+        assertThat(buildables, is(Arrays.asList(mergeRequest, note, push1, other, push2, openMergeRequest)));
+    }
+
+    @Test
+    public void sortBuildableItems_configuredPriorities() {
+        BuildPriorities.instance().configure(true, 2, 1, 1, 3, 0);
+
+        List<Queue.BuildableItem> buildables = sort(push1, openMergeRequest, other, push2, mergeRequest, note);
+
+        assertThat(buildables, is(Arrays.asList(push1, push2, note, mergeRequest, openMergeRequest, other)));
+    }
+
+    @Test
+    public void sortBuildableItems_keepsOrderOfDelegate() {
+        BuildPriorities.instance().configure(true, 1, 1, 3, 5, 0);
+        List<Queue.BuildableItem> buildables = new ArrayList<>(Arrays.asList(push1, openMergeRequest, other, push2, mergeRequest, note));
+
+        new GitLabQueueSorter(new QueueSorter() {
+            @Override
+            public void sortBuildableItems(List<Queue.BuildableItem> buildables) {
+                Collections.reverse(buildables);
+            }
+        }).sortBuildableItems(buildables);
+
+        assertThat(buildables, is(Arrays.asList(note, mergeRequest, push2, other, push1, openMergeRequest)));
+    }
+
+    @Test
+    public void sortBuildableItems_disabled() {
+        List<Queue.BuildableItem> buildables = sort(push1, openMergeRequest, other, push2, mergeRequest, note);
+
+        assertThat(buildables, is(Arrays.asList(push1, openMergeRequest, other, push2, mergeRequest, note)));
+    }
+
+    private List<Queue.BuildableItem> sort(Queue.BuildableItem... items) {
+        List<Queue.BuildableItem> buildables = new ArrayList<>(Arrays.asList(items));
+        new GitLabQueueSorter(null).sortBuildableItems(buildables);
+        return buildables;
+    }
+
+    private Queue.BuildableItem item(PriorityClass priorityClass) {
+        Queue.BuildableItem item = mock(Queue.BuildableItem.class);
+        when(item.getAction(BuildPriorityAction.class)).thenReturn(priorityClass == null ? null : new BuildPriorityAction(priorityClass, 1));
+        return item;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dabsquared.gitlabjenkins.trigger.priority;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class OpenMergeRequestBuildCounterTest {
+
+    private final OpenMergeRequestBuildCounter counter = OpenMergeRequestBuildCounter.instance();
+
+    @Test
+    public void count_pendingUntilCompleted() {
+        counter.pending(101, 1);
+        assertThat(counter.count(1), is(1));
+
+        counter.started(101, 1);
+        assertThat(counter.count(1), is(1));
+
+        counter.completed(1);
+        assertThat(counter.count(1), is(0));
+    }
+
+    @Test
+    public void count_notPendingAnymore() {
+        counter.pending(201, 2);
+        counter.pending(201, 2);
+        counter.pending(202, 2);
+        assertThat(counter.count(2), is(2));
+
+        counter.notPending(201);
+        counter.notPending(202);
+        assertThat(counter.count(2), is(0));
+    }
+
+    @Test
+    public void count_perProject() {
+        counter.pending(301, 3);
+        counter.started(302, 3);
+
+        assertThat(counter.count(3), is(2));
+        assertThat(counter.count(4), is(0));
+        counter.notPending(301);
+        counter.completed(3);
+    }
+}
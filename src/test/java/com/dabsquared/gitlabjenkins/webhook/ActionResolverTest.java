@@ -6,13 +6,16 @@ import com.dabsquared.gitlabjenkins.webhook.build.NoteBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.build.PushBuildAction;
 import com.dabsquared.gitlabjenkins.webhook.status.BranchBuildPageRedirectAction;
 import com.dabsquared.gitlabjenkins.webhook.status.BranchStatusPngAction;
+import com.dabsquared.gitlabjenkins.webhook.status.BulkStatusJsonAction;
 import com.dabsquared.gitlabjenkins.webhook.status.CommitBuildPageRedirectAction;
 import com.dabsquared.gitlabjenkins.webhook.status.CommitStatusPngAction;
 import com.dabsquared.gitlabjenkins.webhook.status.StatusJsonAction;
+import hudson.model.FreeStyleProject;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.StaplerRequest;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -62,6 +65,31 @@ public class ActionResolverTest {
         assertThat(resolvedAction, instanceOf(StatusJsonAction.class));
     }
 
+    @Test
+    public void getBulkStatus() throws IOException {
+        String projectName = "getBulkStatus";
+        jenkins.createFreeStyleProject(projectName);
+        when(request.getRestOfPath()).thenReturn("commits/status.json");
+        when(request.getParameterValues("sha1")).thenReturn(new String[] {"1234abcd", "5678abcd"});
+        when(request.getMethod()).thenReturn("GET");
+
+        WebHookAction resolvedAction = new ActionResolver().resolve(projectName, request);
+
+        assertThat(resolvedAction, instanceOf(BulkStatusJsonAction.class));
+    }
+
+    @Test(expected = HttpResponses.HttpResponseException.class)
+    public void getCommitStatus_renamedProject() throws IOException {
+        String projectName = "getCommitStatus_renamedProject";
+        FreeStyleProject testProject = jenkins.createFreeStyleProject(projectName);
+        when(request.getRestOfPath()).thenReturn("builds/1234abcd/status.json");
+        when(request.getMethod()).thenReturn("GET");
+        new ActionResolver().resolve(projectName, request);
+        testProject.renameTo(projectName + "_renamed");
+
+        new ActionResolver().resolve(projectName, request);
+    }
+
     @Test
     public void getCommitBuildPageRedirect_builds() throws IOException {
         String projectName = "getCommitBuildPageRedirect_builds";
@@ -0,0 +1,104 @@
+package com.dabsquared.gitlabjenkins.webhook.batch;
+
+import com.dabsquared.gitlabjenkins.webhook.limit.WebHookRateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import net.sf.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchWebHookActionTest {
+
+    @Mock
+    private StaplerResponse response;
+
+    @Mock
+    private BatchWebHookAction.ActionFactory actionFactory;
+
+    @Mock
+    private Runnable firstAction;
+
+    @Mock
+    private Runnable secondAction;
+
+    @After
+    public void resetRateLimiter() {
+        WebHookRateLimiter.instance().configure(0, 0, 0);
+    }
+
+    @Test
+    public void execute() throws IOException {
+        when(actionFactory.createActions(eq("Push Hook"), eq("test"), (String) isNull(), any(JsonNode.class)))
+            .thenReturn(map("test", firstAction), map("test", secondAction));
+        when(actionFactory.createActions(eq("Pipeline Hook"), anyString(), anyString(), any(JsonNode.class)))
+            .thenThrow(new IllegalArgumentException("Unsupported event: Pipeline Hook"));
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+        String batch = "{\"event\": \"Push Hook\", \"project\": \"test\", \"payload\": {\"ref\": \"refs/heads/master\"}}\n"
+            + "\n"
+            + "{\"event\": \"Pipeline Hook\", \"project\": \"test\", \"uuid\": \"1\", \"payload\": {}}\n"
+            + "{\"event\": \"Push Hook\"}\n"
+            + "{\"event\": \"Push Hook\", \"project\": \"test\", \"payload\": {\"ref\": \"refs/heads/master\"}}\n";
+
+        new BatchWebHookAction(new StringReader(batch), actionFactory).execute(response);
+
+        InOrder inOrder = inOrder(firstAction, secondAction);
+        inOrder.verify(firstAction).run();
+        inOrder.verify(secondAction).run();
+        JSONObject result = JSONObject.fromObject(body.toString());
+        assertThat(result.getInt("processed"), is(2));
+        assertThat(result.getInt("failed"), is(2));
+        assertThat(result.getJSONArray("lines").getJSONObject(1).getInt("line"), is(3));
+        assertThat(result.getJSONArray("lines").getJSONObject(1).getString("status"), is("failed"));
+    }
+
+    @Test
+    public void execute_rateLimitedPerJob() throws IOException {
+        WebHookRateLimiter.instance().configure(0, 1, 0);
+        when(actionFactory.createActions(eq("Push Hook"), eq("limited"), (String) isNull(), any(JsonNode.class)))
+            .thenReturn(map("limited", firstAction));
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+        StringBuilder batch = new StringBuilder();
+        // a rate of 1 allows a burst of 10 web hooks
+        for (int i = 0; i < 20; i++) {
+            batch.append("{\"event\": \"Push Hook\", \"project\": \"limited\", \"payload\": {}}\n");
+        }
+
+        new BatchWebHookAction(new StringReader(batch.toString()), actionFactory).execute(response);
+
+        JSONObject result = JSONObject.fromObject(body.toString());
+        verify(firstAction, times(result.getInt("processed"))).run();
+        assertThat(result.getInt("processed"), lessThan(20));
+        assertThat(result.getInt("processed") + result.getInt("failed"), is(20));
+        assertThat(result.has("truncated"), is(false));
+    }
+
+    private Map<String, Runnable> map(String jobName, Runnable action) {
+        return Collections.singletonMap(jobName, action);
+    }
+}
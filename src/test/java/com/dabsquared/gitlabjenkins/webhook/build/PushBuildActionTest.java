@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -63,6 +64,25 @@ public class PushBuildActionTest {
         verify(trigger).onPost(any(PushHook.class));
     }
 
+    @Test
+    public void skip_duplicateDelivery() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        when(trigger.getTriggerOpenMergeRequestOnPush()).thenReturn(TriggerOpenMergeRequest.never);
+        testProject.addTrigger(trigger);
+
+        try {
+            new PushBuildAction(testProject, getJson("PushEvent.json")).withDeliveryId("delivery-1").execute(response);
+        } catch (HttpResponses.HttpResponseException e) {
+            // expected
+        }
+        exception.expect(HttpResponses.HttpResponseException.class);
+        try {
+            new PushBuildAction(testProject, getJson("PushEvent.json")).withDeliveryId("delivery-1").execute(response);
+        } finally {
+            verify(trigger, times(1)).onPost(any(PushHook.class));
+        }
+    }
+
     private String getJson(String name) throws IOException {
         return IOUtils.toString(getClass().getResourceAsStream(name));
     }
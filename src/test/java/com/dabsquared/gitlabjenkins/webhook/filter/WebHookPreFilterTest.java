@@ -0,0 +1,53 @@
+package com.dabsquared.gitlabjenkins.webhook.filter;
+
+import com.dabsquared.gitlabjenkins.trigger.TriggerOpenMergeRequest;
+import com.dabsquared.gitlabjenkins.trigger.filter.BranchFilterType;
+import hudson.model.FreeStyleProject;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+
+import static com.dabsquared.gitlabjenkins.builder.generated.GitLabPushTriggerBuilder.gitLabPushTrigger;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WebHookPreFilterTest {
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void mergeRequestHook_closed() throws IOException {
+        FreeStyleProject project = project(false);
+
+        assertThat(accepts(project, "closed"), is(false));
+        assertThat(accepts(project, "opened"), is(true));
+    }
+
+    @Test
+    public void mergeRequestHook_closed_abortObsoleteBuilds() throws IOException {
+        FreeStyleProject project = project(true);
+
+        assertThat(accepts(project, "closed"), is(true));
+        assertThat(accepts(project, "merged"), is(true));
+    }
+
+    private FreeStyleProject project(boolean abortObsoleteBuilds) throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject();
+        project.addTrigger(gitLabPushTrigger()
+                               .withTriggerOnMergeRequest(true)
+                               .withTriggerOpenMergeRequestOnPush(TriggerOpenMergeRequest.never)
+                               .withAbortObsoleteBuilds(abortObsoleteBuilds)
+                               .withBranchFilterType(BranchFilterType.All)
+                               .build());
+        return project;
+    }
+
+    private boolean accepts(FreeStyleProject project, String state) {
+        String body = "{\"object_kind\":\"merge_request\",\"object_attributes\":{\"state\":\"" + state + "\",\"target_branch\":\"master\"}}";
+        return WebHookPreFilter.instance().accepts(project, "Merge Request Hook", body.getBytes(UTF_8), UTF_8);
+    }
+}
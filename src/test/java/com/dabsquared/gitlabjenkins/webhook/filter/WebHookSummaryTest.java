@@ -0,0 +1,64 @@
+package com.dabsquared.gitlabjenkins.webhook.filter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+
+public class WebHookSummaryTest {
+
+    @Test
+    public void pushHook() throws IOException {
+        WebHookSummary summary = read("Push Hook", "PushEvent.json");
+
+        assertThat(summary.getRef(), is("refs/heads/master"));
+        assertThat(summary.getTargetBranch(), is("master"));
+        assertThat(summary.getAfter(), is("da1560886d4f094c3e6c9ef40349f7d38b5d27d7"));
+        assertThat(summary.getProjectId(), is(15));
+        assertThat(summary.isCiSkip(), is(false));
+        assertThat(summary.getRepositoryUrls(), containsInAnyOrder(
+            "git@example.com:mike/diasporadiaspora.git", "http://example.com/mike/diaspora.git", "git@example.com:mike/diaspora.git",
+            "git@example.com:mike/diasporadiaspora.git", "http://example.com/mike/diaspora.git", "git@example.com:mike/diaspora.git"));
+    }
+
+    @Test
+    public void pushHook_ciSkipInLastCommit() throws IOException {
+        WebHookSummary summary = WebHookSummary.read("Push Hook", new StringReader(
+            "{\"ref\":\"refs/heads/master\",\"commits\":[{\"message\":\"first\"},{\"author\":{\"name\":\"test\"},\"message\":\"[ci-skip] second\"}],"
+            + "\"total_commits_count\":2}"));
+
+        assertThat(summary.isCiSkip(), is(true));
+        assertThat(summary.getTargetBranch(), is("master"));
+    }
+
+    @Test
+    public void mergeRequestHook() throws IOException {
+        WebHookSummary summary = read("Merge Request Hook", "MergeRequestEvent.json");
+
+        assertThat(summary.getState(), is("opened"));
+        assertThat(summary.getTargetBranch(), is("master"));
+        assertThat(summary.getProjectId(), is(14));
+        assertThat(summary.getRef(), nullValue());
+    }
+
+    @Test
+    public void noteHook() throws IOException {
+        WebHookSummary summary = read("Note Hook", "NoteEvent.json");
+
+        assertThat(summary.getNote(), is("This MR needs work."));
+        assertThat(summary.getTargetBranch(), is("markdown"));
+        assertThat(summary.getProjectId(), is(5));
+    }
+
+    private WebHookSummary read(String eventType, String file) throws IOException {
+        return WebHookSummary.read(eventType, new InputStreamReader(
+            getClass().getResourceAsStream("/com/dabsquared/gitlabjenkins/webhook/build/" + file), UTF_8));
+    }
+}
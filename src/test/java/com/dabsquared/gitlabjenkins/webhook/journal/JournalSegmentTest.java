@@ -0,0 +1,64 @@
+package com.dabsquared.gitlabjenkins.webhook.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class JournalSegmentTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void open_pendingEntries() throws IOException {
+        File file = folder.newFile("segment-1.journal");
+        JournalSegment segment = JournalSegment.create(1, file, 1024);
+        int done = segment.append(JournalSegment.encode(1, "Push Hook", "test", null, UTF_8, "{\"ref\":\"a\"}".getBytes(UTF_8)));
+        segment.append(JournalSegment.encode(2, "Merge Request Hook", null, "uuid", UTF_8, "{}".getBytes(UTF_8)));
+        segment.markDone(done);
+        segment.force();
+
+        List<JournaledWebHook> pendingWebHooks = new ArrayList<>();
+        JournalSegment reopened = JournalSegment.open(1, file, pendingWebHooks);
+
+        assertThat(reopened.getPending(), is(1));
+        assertThat(pendingWebHooks.size(), is(1));
+        JournaledWebHook webHook = pendingWebHooks.get(0);
+        assertThat(webHook.getEventType(), is("Merge Request Hook"));
+        assertThat(webHook.getProjectName(), nullValue());
+        assertThat(webHook.getDeliveryId(), is("uuid"));
+        assertThat(new String(webHook.getBody(), webHook.getCharset()), is("{}"));
+    }
+
+    @Test
+    public void hasRemaining() throws IOException {
+        JournalSegment segment = JournalSegment.create(1, folder.newFile("segment-1.journal"), 64);
+        byte[] record = JournalSegment.encode(1, "Push Hook", "test", null, UTF_8, new byte[10]);
+
+        assertThat(segment.hasRemaining(record.length), is(true));
+        segment.append(record);
+        assertThat(segment.hasRemaining(record.length), is(false));
+    }
+
+    @Test
+    public void delete() throws IOException {
+        File file = folder.newFile("segment-1.journal");
+        JournalSegment segment = JournalSegment.create(1, file, 1024);
+        segment.append(JournalSegment.encode(1, "Push Hook", "test", null, UTF_8, "{}".getBytes(UTF_8)));
+
+        assertThat(segment.delete(), is(true));
+        assertThat(file.exists(), is(false));
+        // a flush racing with the deletion must not touch the unmapped buffer
+        segment.force();
+    }
+}
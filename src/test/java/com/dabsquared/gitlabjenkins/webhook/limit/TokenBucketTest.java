@@ -0,0 +1,43 @@
+package com.dabsquared.gitlabjenkins.webhook.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TokenBucketTest {
+
+    @Test
+    public void tryAcquire_burst() {
+        TokenBucket bucket = new TokenBucket(1, 3, 0);
+
+        assertThat(bucket.tryAcquire(0), is(true));
+        assertThat(bucket.tryAcquire(0), is(true));
+        assertThat(bucket.tryAcquire(0), is(true));
+        assertThat(bucket.tryAcquire(0), is(false));
+    }
+
+    @Test
+    public void tryAcquire_refill() {
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(400)), is(false));
+        assertThat(bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(500)), is(true));
+        assertThat(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(10)), is(true));
+        assertThat(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(10)), is(true));
+        assertThat(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(10)), is(false));
+    }
+
+    @Test
+    public void getSecondsUntilRefill() {
+        TokenBucket bucket = new TokenBucket(0.5, 1, 0);
+        bucket.tryAcquire(0);
+
+        assertThat(bucket.getSecondsUntilRefill(0), is(2));
+        assertThat(bucket.getSecondsUntilRefill(TimeUnit.SECONDS.toNanos(2)), is(0));
+    }
+}
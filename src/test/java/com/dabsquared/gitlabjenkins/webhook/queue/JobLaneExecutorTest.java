@@ -0,0 +1,79 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class JobLaneExecutorTest {
+
+    private final JobLaneExecutor executor = JobLaneExecutor.instance();
+
+    @Test
+    public void submit_sameLaneInOrder_otherLanesInParallel() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+
+        Future<?> first = executor.submit("job-a", new Runnable() {
+            public void run() {
+                await(blocked);
+                processed.add("a1");
+            }
+        });
+        Future<?> second = executor.submit("job-a", new Recorder(processed, "a2"));
+        Future<?> other = executor.submit("job-b", new Recorder(processed, "b1"));
+
+        other.get(10, TimeUnit.SECONDS);
+        assertThat(first.isDone(), is(false));
+        assertThat(second.isDone(), is(false));
+
+        blocked.countDown();
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(processed, contains("b1", "a1", "a2"));
+    }
+
+    @Test
+    public void submit_failingTaskDoesNotBlockLane() throws Exception {
+        Future<?> failing = executor.submit("job-c", new Runnable() {
+            public void run() {
+                throw new IllegalStateException("test");
+            }
+        });
+        List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+        Future<?> next = executor.submit("job-c", new Recorder(processed, "c2"));
+
+        next.get(10, TimeUnit.SECONDS);
+        assertThat(failing.isDone(), is(true));
+        assertThat(processed, contains("c2"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Recorder implements Runnable {
+        private final List<String> processed;
+        private final String name;
+
+        private Recorder(List<String> processed, String name) {
+            this.processed = processed;
+            this.name = name;
+        }
+
+        public void run() {
+            processed.add(name);
+        }
+    }
+}
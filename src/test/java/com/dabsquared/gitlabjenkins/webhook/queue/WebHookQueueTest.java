@@ -0,0 +1,150 @@
+package com.dabsquared.gitlabjenkins.webhook.queue;
+
+import hudson.util.HttpResponses;
+import hudson.util.OneShotEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WebHookQueueTest {
+
+    private WebHookQueue queue;
+
+    @Before
+    public void setup() {
+        queue = WebHookQueue.instance();
+        queue.configure(1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        queue.configure(WebHookQueue.DEFAULT_CAPACITY, WebHookQueue.DEFAULT_WORKER_THREADS);
+    }
+
+    @Test
+    public void submit_done() throws InterruptedException {
+        final OneShotEvent processed = new OneShotEvent();
+        WebHookEvent event = queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+                processed.signal();
+                throw HttpResponses.ok();
+            }
+        });
+
+        processed.block(10000);
+        waitForCompletion(event);
+        assertThat(queue.getEvent(event.getId()).getStatus(), is(WebHookEvent.Status.DONE));
+    }
+
+    @Test
+    public void submit_failed() throws InterruptedException {
+        WebHookEvent event = queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+                throw new IllegalStateException("broken payload");
+            }
+        });
+
+        waitForCompletion(event);
+        assertThat(event.getStatus(), is(WebHookEvent.Status.FAILED));
+        assertThat(event.getMessage(), is("broken payload"));
+    }
+
+    @Test
+    public void submit_errorResponse() throws InterruptedException {
+        long failed = queue.getFailedCount();
+        WebHookEvent event = queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+                throw HttpResponses.errorWithoutStack(409, "Push Hook is not supported for this project");
+            }
+        });
+
+        waitForCompletion(event);
+        assertThat(event.getStatus(), is(WebHookEvent.Status.FAILED));
+        assertThat(event.getMessage(), containsString("409"));
+        assertThat(event.getMessage(), containsString("Push Hook is not supported for this project"));
+        assertThat(queue.getFailedCount(), is(failed + 1));
+    }
+
+    @Test
+    public void shutdown() throws InterruptedException {
+        WebHookQueue.shutdown();
+
+        assertThat(queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+            }
+        }), nullValue());
+    }
+
+    @Test
+    public void shutdown_processesQueuedHooks() throws InterruptedException {
+        final OneShotEvent release = new OneShotEvent();
+        WebHookEvent running = queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+                try {
+                    release.block(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        WebHookEvent queued = queue.submit("Push Hook", "test", new Runnable() {
+            public void run() {
+            }
+        });
+        Thread shutdown = new Thread() {
+            public void run() {
+                try {
+                    WebHookQueue.shutdown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        shutdown.start();
+        shutdown.join(200);
+        release.signal();
+        shutdown.join(10000);
+
+        waitForCompletion(running);
+        waitForCompletion(queued);
+        assertThat(queued.getStatus(), is(WebHookEvent.Status.DONE));
+    }
+
+    @Test
+    public void submit_queueFull() throws InterruptedException {
+        final OneShotEvent release = new OneShotEvent();
+        final OneShotEvent running = new OneShotEvent();
+        Runnable blockingTask = new Runnable() {
+            public void run() {
+                running.signal();
+                try {
+                    release.block(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        WebHookEvent first = queue.submit("Push Hook", "test", blockingTask);
+        running.block(10000);
+        WebHookEvent second = queue.submit("Push Hook", "test", blockingTask);
+        WebHookEvent third = queue.submit("Push Hook", "test", blockingTask);
+        release.signal();
+
+        assertThat(first, notNullValue());
+        assertThat(second, notNullValue());
+        assertThat(third, nullValue());
+    }
+
+    private void waitForCompletion(WebHookEvent event) throws InterruptedException {
+        assertThat(event.awaitFinished(10, TimeUnit.SECONDS), is(true));
+    }
+}
@@ -0,0 +1,101 @@
+package com.dabsquared.gitlabjenkins.webhook.route;
+
+import com.dabsquared.gitlabjenkins.GitLabPushTrigger;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.PushHook;
+import com.dabsquared.gitlabjenkins.gitlab.hook.model.Repository;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class GitLabJobIndexTest {
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void normalize() {
+        assertThat(GitLabJobIndex.normalize("git@gitlab.example.com:Group/Project.git"), is("gitlab.example.com/group/project"));
+        assertThat(GitLabJobIndex.normalize("https://user@gitlab.example.com/group/project.git/"), is("gitlab.example.com/group/project"));
+        assertThat(GitLabJobIndex.normalize("ssh://git@gitlab.example.com:2222/group/project"), is("gitlab.example.com/group/project"));
+        assertThat(GitLabJobIndex.normalize(""), nullValue());
+    }
+
+    @Test
+    public void findJobs() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM("git@gitlab.example.com:group/project.git"));
+        testProject.addTrigger(mock(GitLabPushTrigger.class));
+        FreeStyleProject otherProject = jenkins.createFreeStyleProject();
+        otherProject.setScm(new GitSCM("git@gitlab.example.com:group/other.git"));
+        otherProject.addTrigger(mock(GitLabPushTrigger.class));
+
+        assertThat(GitLabJobIndex.instance().findJobs(pushHook(1, "http://gitlab.example.com/group/project.git")),
+                   contains(testProject.getFullName()));
+    }
+
+    @Test
+    public void findJobs_renamedProject() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM("git@gitlab.example.com:group/old-name.git"));
+        testProject.addTrigger(mock(GitLabPushTrigger.class));
+
+        GitLabJobIndex.instance().findJobs(pushHook(2, "http://gitlab.example.com/group/old-name.git"));
+
+        assertThat(GitLabJobIndex.instance().findJobs(pushHook(2, "http://gitlab.example.com/group/new-name.git")),
+                   contains(testProject.getFullName()));
+    }
+
+    @Test
+    public void findJobs_unknownRepositoryNotRemembered() throws IOException {
+        GitLabJobIndex.instance().findJobs(pushHook(5, "http://gitlab.example.com/group/later.git"));
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM("git@gitlab.example.com:group/later.git"));
+        testProject.addTrigger(mock(GitLabPushTrigger.class));
+
+        assertThat(GitLabJobIndex.instance().findJobs(pushHook(5, "http://gitlab.example.com/group/other-name.git")), empty());
+    }
+
+    @Test
+    public void findJobs_projectPathAndId() throws IOException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM("git@gitlab.example.com:group/matrix.git"));
+        testProject.addTrigger(mock(GitLabPushTrigger.class));
+
+        GitLabJobIndex.instance().findJobs(pushHook(4, "http://gitlab.example.com/group/matrix.git"));
+
+        assertThat(GitLabJobIndex.instance().findJobs("Group/Matrix"), contains(testProject.getFullName()));
+        assertThat(GitLabJobIndex.instance().findJobs("https://gitlab.example.com/group/matrix.git"), contains(testProject.getFullName()));
+        assertThat(GitLabJobIndex.instance().findJobs("4"), contains(testProject.getFullName()));
+        assertThat(GitLabJobIndex.instance().findJobs("matrix"), empty());
+    }
+
+    @Test
+    public void findJobs_deletedJob() throws IOException, InterruptedException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM("git@gitlab.example.com:group/deleted.git"));
+        testProject.addTrigger(mock(GitLabPushTrigger.class));
+        testProject.delete();
+
+        assertThat(GitLabJobIndex.instance().findJobs(pushHook(3, "http://gitlab.example.com/group/deleted.git")), empty());
+    }
+
+    private PushHook pushHook(Integer projectId, String url) {
+        Repository repository = new Repository();
+        repository.setGitHttpUrl(url);
+        PushHook hook = new PushHook();
+        hook.setProjectId(projectId);
+        hook.setRepository(repository);
+        return hook;
+    }
+}
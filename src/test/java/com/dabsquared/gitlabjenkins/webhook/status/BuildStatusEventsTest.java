@@ -0,0 +1,88 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import com.dabsquared.gitlabjenkins.webhook.status.BuildStatusAction.BuildStatus;
+import org.junit.Test;
+import org.kohsuke.stapler.HttpResponses;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class BuildStatusEventsTest {
+
+    private static final String SHA1 = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+
+    @Test
+    public void await_pastEvents() throws InterruptedException {
+        BuildStatusEvents events = new BuildStatusEvents();
+        events.publish("job", 1, Collections.singleton(SHA1), BuildStatus.RUNNING);
+        events.publish("other", 1, Collections.<String>emptySet(), BuildStatus.RUNNING);
+        events.publish("job", 1, Collections.singleton(SHA1), BuildStatus.SUCCESS);
+
+        List<BuildStatusEvents.Event> result = events.await("job", null, 0, 0, TimeUnit.SECONDS);
+
+        assertThat(result.size(), is(2));
+        assertThat(result.get(0).getStatus(), is("running"));
+        assertThat(result.get(1).getStatus(), is("success"));
+        assertThat(result.get(1).getId(), is(3L));
+        assertThat(events.await("job", null, 3, 0, TimeUnit.SECONDS).isEmpty(), is(true));
+    }
+
+    @Test
+    public void await_sha1() throws InterruptedException {
+        BuildStatusEvents events = new BuildStatusEvents();
+        events.publish("job", 1, Collections.singleton(SHA1), BuildStatus.FAILED);
+        events.publish("job", 2, Arrays.asList("95790bf891e76fee5e1747ab589903a6a1f80f22"), BuildStatus.CANCELED);
+        events.publish("job", 3, Collections.<String>emptySet(), BuildStatus.FAILED);
+
+        List<BuildStatusEvents.Event> result = events.await("job", "DA15608", 0, 0, TimeUnit.SECONDS);
+
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).getBuildNumber(), is(1));
+        assertThat(result.get(0).getSha1(), is(SHA1));
+        assertThat(events.await("job", null, 2, 0, TimeUnit.SECONDS).get(0).getSha1(), nullValue());
+    }
+
+    @Test
+    public void parseToken() {
+        BuildStatusEvents events = new BuildStatusEvents();
+
+        assertThat(events.parseToken(events.toToken(42)), is(42L));
+        assertThat(events.parseToken(null), is(-1L));
+        assertThat(events.parseToken(new BuildStatusEvents().toToken(42)), is(0L));
+        assertThat(events.parseToken("42"), is(0L));
+    }
+
+    @Test(expected = HttpResponses.HttpResponseException.class)
+    public void parseToken_invalid() {
+        new BuildStatusEvents().parseToken("abc-def");
+    }
+
+    @Test
+    public void await_futureEvent() throws Exception {
+        final BuildStatusEvents events = new BuildStatusEvents();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<BuildStatusEvents.Event>> result = executor.submit(new Callable<List<BuildStatusEvents.Event>>() {
+                public List<BuildStatusEvents.Event> call() throws InterruptedException {
+                    return events.await("job", SHA1, 0, 10, TimeUnit.SECONDS);
+                }
+            });
+            events.publish("job", 1, Collections.singleton("95790bf891e76fee5e1747ab589903a6a1f80f22"), BuildStatus.RUNNING);
+            events.publish("job", 2, Collections.singleton(SHA1), BuildStatus.RUNNING);
+
+            assertThat(result.get(5, TimeUnit.SECONDS).get(0).getBuildNumber(), is(2));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import net.sf.json.JSONArray;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkStatusJsonActionTest {
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Mock
+    private StaplerResponse response;
+
+    private String commitSha1;
+    private String gitRepoUrl;
+
+    @Before
+    public void setup() throws Exception {
+        Git.init().setDirectory(tmp.getRoot()).call();
+        tmp.newFile("test");
+        Git git = Git.open(tmp.getRoot());
+        git.add().addFilepattern("test");
+        RevCommit commit = git.commit().setMessage("test").call();
+        commitSha1 = commit.getId().getName();
+        gitRepoUrl = tmp.getRoot().toURI().toString();
+    }
+
+    @Test
+    public void execute() throws IOException, ExecutionException, InterruptedException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM(gitRepoUrl));
+        FreeStyleBuild build = testProject.scheduleBuild2(0).get();
+        StringWriter out = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(out));
+
+        new BulkStatusJsonAction(testProject, Arrays.asList(commitSha1, "0000000000000000000000000000000000000000", commitSha1),
+                                 Collections.singletonList("master")).execute(response);
+
+        JSONArray result = JSONArray.fromObject(out.toString());
+        assertThat(result.size(), is(3));
+        assertThat(result.getJSONObject(0).getString("sha"), is(commitSha1));
+        assertThat(result.getJSONObject(0).getInt("id"), is(build.getNumber()));
+        assertThat(result.getJSONObject(0).getString("status"), is("success"));
+        assertThat(result.getJSONObject(1).has("id"), is(false));
+        assertThat(result.getJSONObject(1).getString("status"), is("not_found"));
+        assertThat(result.getJSONObject(2).getString("ref"), is("master"));
+        assertThat(result.getJSONObject(2).getInt("id"), is(build.getNumber()));
+    }
+
+    @Test
+    public void fromQuery() throws IOException, ExecutionException, InterruptedException {
+        FreeStyleProject testProject = jenkins.createFreeStyleProject();
+        testProject.setScm(new GitSCM(gitRepoUrl));
+        testProject.scheduleBuild2(0).get();
+        StringWriter out = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(out));
+
+        BulkStatusJsonAction.fromQuery(testProject, new StringReader(
+                "{\"other\": {\"sha1s\": [\"ffff\"]}, \"sha1s\": [\"" + commitSha1 + "\", 1, [\"eeee\"]], \"refs\": [\"master\"]}"))
+            .execute(response);
+
+        JSONArray result = JSONArray.fromObject(out.toString());
+        assertThat(result.size(), is(2));
+        assertThat(result.getJSONObject(0).getString("sha"), is(commitSha1));
+        assertThat(result.getJSONObject(1).getString("ref"), is("master"));
+    }
+
+    @Test(expected = HttpResponses.HttpResponseException.class)
+    public void fromQuery_tooManyEntries() {
+        StringBuilder query = new StringBuilder("{\"refs\": [");
+        for (int i = 0; i <= BulkStatusJsonAction.MAX_ENTRIES; i++) {
+            query.append(i == 0 ? "" : ",").append("\"branch-").append(i).append('"');
+        }
+        query.append("]}");
+
+        BulkStatusJsonAction.fromQuery(null, new StringReader(query.toString()));
+    }
+}
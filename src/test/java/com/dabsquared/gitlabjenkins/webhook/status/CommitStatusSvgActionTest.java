@@ -0,0 +1,10 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import hudson.model.FreeStyleProject;
+
+public class CommitStatusSvgActionTest extends StatusSvgActionTest {
+    @Override
+    protected BuildStatusAction getBuildStatusAction(FreeStyleProject project) {
+        return new CommitStatusSvgAction(project, commitSha1);
+    }
+}
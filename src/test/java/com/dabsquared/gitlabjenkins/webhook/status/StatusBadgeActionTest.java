@@ -0,0 +1,95 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatusBadgeActionTest {
+
+    private static final String SHA1 = "da1560886d4f094c3e6c9ef40349f7d38b5d27d7";
+
+    @ClassRule
+    public static JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void ifNoneMatch_notModified() throws IOException {
+        FreeStyleProject testProject = createProject("badge");
+        String eTag = getETag(testProject);
+
+        StaplerResponse response = mockResponse(new ByteArrayOutputStream());
+        badgeAction(testProject, "W/" + eTag).execute(response);
+
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    public void ifNoneMatch_otherETag() throws IOException {
+        FreeStyleProject testProject = createProject("other-badge");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StaplerResponse response = mockResponse(out);
+        badgeAction(testProject, "\"0-0-not_found\"").execute(response);
+
+        verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(out.size() > 0, is(true));
+    }
+
+    @Test
+    public void eTag_collidingHashCodes() throws IOException {
+        // "Aa" and "BB" have the same String hash code
+        assertThat(getETag(createProject("Aa")), not(getETag(createProject("BB"))));
+    }
+
+    private FreeStyleProject createProject(String name) throws IOException {
+        FreeStyleProject project = jenkins.createFreeStyleProject(name);
+        project.setScm(new GitSCM("git@gitlab.example.com:group/project.git"));
+        return project;
+    }
+
+    private String getETag(FreeStyleProject project) throws IOException {
+        StaplerResponse response = mockResponse(new ByteArrayOutputStream());
+        badgeAction(project, null).execute(response);
+        ArgumentCaptor<String> eTag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), eTag.capture());
+        return eTag.getValue();
+    }
+
+    private StatusBadgeAction badgeAction(FreeStyleProject project, final String ifNoneMatch) {
+        return new CommitStatusSvgAction(project, SHA1) {
+            @Override
+            String getIfNoneMatch() {
+                return ifNoneMatch;
+            }
+        };
+    }
+
+    private StaplerResponse mockResponse(final ByteArrayOutputStream out) throws IOException {
+        StaplerResponse response = mock(StaplerResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+            }
+        });
+        return response;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dabsquared.gitlabjenkins.webhook.status;
 
+import com.google.common.hash.Hashing;
 import hudson.model.FreeStyleBuild;
 import org.apache.commons.io.IOUtils;
 import org.kohsuke.stapler.StaplerResponse;
@@ -10,6 +11,7 @@ import java.io.IOException;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.verify;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * @author Robin Müller
@@ -18,16 +20,16 @@ public abstract class StatusPngActionTest extends BuildStatusActionTest {
 
     @Override
     protected void assertSuccessfulBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
-        verify(response).setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
-        verify(response).setHeader("Cache-Control", "no-cache, private");
+        String nameDigest = Hashing.sha1().hashString(build.getParent().getFullName(), UTF_8).toString();
+        verify(response).setHeader("ETag", "\"" + nameDigest + "-" + build.getNumber() + "-success\"");
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
         verify(response).setHeader("Content-Type", "image/png");
         assertThat(out.toByteArray(), is(IOUtils.toByteArray(getClass().getResourceAsStream("success.png"))));
     }
 
     @Override
     protected void assertFailedBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
-        verify(response).setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
-        verify(response).setHeader("Cache-Control", "no-cache, private");
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
         verify(response).setHeader("Content-Type", "image/png");
         assertThat(out.toByteArray(), is(IOUtils.toByteArray(getClass().getResourceAsStream("failed.png"))));
     }
@@ -42,16 +44,14 @@ public abstract class StatusPngActionTest extends BuildStatusActionTest {
 
     @Override
     protected void assertCanceledBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
-        verify(response).setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
-        verify(response).setHeader("Cache-Control", "no-cache, private");
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
         verify(response).setHeader("Content-Type", "image/png");
         assertThat(out.toByteArray(), is(IOUtils.toByteArray(getClass().getResourceAsStream("unknown.png"))));
     }
 
     @Override
     protected void assertUnstableBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
-        verify(response).setHeader("Expires", "Fri, 01 Jan 1984 00:00:00 GMT");
-        verify(response).setHeader("Cache-Control", "no-cache, private");
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
         verify(response).setHeader("Content-Type", "image/png");
         assertThat(out.toByteArray(), is(IOUtils.toByteArray(getClass().getResourceAsStream("unstable.png"))));
     }
@@ -0,0 +1,53 @@
+package com.dabsquared.gitlabjenkins.webhook.status;
+
+import hudson.model.FreeStyleBuild;
+import org.kohsuke.stapler.StaplerResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
+
+public abstract class StatusSvgActionTest extends BuildStatusActionTest {
+
+    @Override
+    protected void assertSuccessfulBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
+        verify(response).setHeader("Content-Type", "image/svg+xml;charset=utf-8");
+        assertThat(out.toString("UTF-8"), startsWith("<svg"));
+        assertThat(out.toString("UTF-8"), containsString("#" + build.getNumber() + " success in "));
+    }
+
+    @Override
+    protected void assertFailedBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
+        assertThat(out.toString("UTF-8"), containsString("#" + build.getNumber() + " failed in "));
+    }
+
+    @Override
+    protected void assertRunningBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "no-cache, private");
+        assertThat(out.toString("UTF-8"), containsString("#" + build.getNumber() + " running<"));
+    }
+
+    @Override
+    protected void assertCanceledBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
+        assertThat(out.toString("UTF-8"), containsString("#" + build.getNumber() + " canceled in "));
+    }
+
+    @Override
+    protected void assertUnstableBuild(FreeStyleBuild build, ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "max-age=" + StatusBadgeAction.MAX_AGE + ", private");
+        assertThat(out.toString("UTF-8"), containsString("#" + build.getNumber() + " unstable in "));
+    }
+
+    @Override
+    protected void assertNotFoundBuild(ByteArrayOutputStream out, StaplerResponse response) throws IOException {
+        verify(response).setHeader("Cache-Control", "no-cache, private");
+        assertThat(out.toString("UTF-8"), containsString(">not found<"));
+    }
+}